@@ -0,0 +1,148 @@
+#!/usr/bin/env bash
+# Замер старта приложения: время от запуска JVM до первого успешного логина (POST /process_login)
+# и RSS процесса в этот момент. Каждый режим запускается RUNS раз, в итоге печатаются медианы.
+#
+# Режимы:
+#   jvm      обычный запуск (рефлексивная инициализация контекста)
+#   cds      запуск с архивом AppCDS, обученным на обычном запуске
+#   aot      запуск с инициализацией контекста, сгенерированной Spring AOT (-Dspring.aot.enabled=true)
+#   aot-cds  Spring AOT и архив AppCDS, обученный на AOT-запуске
+#
+# Приложение собирается профилем aot: ./mvnw -Paot package
+# (target/cds - распакованное приложение и application.jsa; без доступной базы: -Dcds.skip=true).
+# Отсутствующие архивы CDS обучаются скриптом перед замером с теми же JAVA_OPTS, APP_ARGS и EXTRA_CLASSPATH.
+#
+# Использование: scripts/startup-benchmark.sh [RUNS]
+# Переменные окружения:
+#   MODES            режимы через пробел (по умолчанию "jvm cds aot aot-cds")
+#   PORT             порт приложения (по умолчанию 8080)
+#   LOGIN_USER       email для логина (по умолчанию admin@mail.ru)
+#   LOGIN_PASSWORD   пароль (по умолчанию admin)
+#   JAVA_OPTS        дополнительные опции JVM, например "-Xmx512m"
+#   APP_ARGS         дополнительные аргументы приложения, например "--spring.datasource.url=jdbc:mysql://db/app"
+#   EXTRA_CLASSPATH  дополнительные jar через ":" (например, драйвер H2 для запуска без MySQL)
+#   TIMEOUT          максимальное ожидание логина в секундах (по умолчанию 120)
+set -euo pipefail
+
+RUNS=${1:-5}
+MODES=${MODES:-"jvm cds aot aot-cds"}
+PORT=${PORT:-8080}
+LOGIN_USER=${LOGIN_USER:-admin@mail.ru}
+LOGIN_PASSWORD=${LOGIN_PASSWORD:-admin}
+JAVA_OPTS=${JAVA_OPTS:-}
+APP_ARGS=${APP_ARGS:-}
+EXTRA_CLASSPATH=${EXTRA_CLASSPATH:-}
+TIMEOUT=${TIMEOUT:-120}
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+APP_DIR="$ROOT/target/cds"
+OUT_DIR="$ROOT/target/startup-benchmark"
+MAIN_CLASS=ru.kata.spring_boot_security_demo.SpringBootSecurityDemoApplication
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+# Ограничение попыток логина выключено: до создания демонстрационных пользователей попытки неуспешны
+THROTTLE_ARGS="--app.security.login-throttle.ip-burst=1000000 --app.security.login-throttle.account-burst=1000000"
+
+if [[ ! -f "$APP_DIR/application.jar" ]]; then
+    echo "Нет $APP_DIR/application.jar: сначала выполните ./mvnw -Paot package" >&2
+    exit 1
+fi
+CLASSPATH="$APP_DIR/application.jar${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}"
+mkdir -p "$OUT_DIR"
+
+now_ms() {
+    date +%s%3N
+}
+
+# Опции JVM режима: флаг Spring AOT и архив CDS
+mode_options() {
+    case "$1" in
+        jvm) echo "" ;;
+        cds) echo "-XX:SharedArchiveFile=$APP_DIR/jvm.jsa" ;;
+        aot) echo "-Dspring.aot.enabled=true" ;;
+        aot-cds) echo "-Dspring.aot.enabled=true -XX:SharedArchiveFile=$APP_DIR/application.jsa" ;;
+        *) echo "Неизвестный режим: $1" >&2; exit 1 ;;
+    esac
+}
+
+# Обучающий запуск: контекст поднимается до onRefresh, загруженные классы сохраняются в архив при выходе
+train() {
+    local archive=$1 aot_option=$2
+    [[ -f "$archive" ]] && return 0
+    echo "Обучение архива CDS $(basename "$archive")"
+    # shellcheck disable=SC2086
+    "$JAVA" $JAVA_OPTS $aot_option -XX:ArchiveClassesAtExit="$archive" -Dspring.context.exit=onRefresh \
+        -cp "$CLASSPATH" "$MAIN_CLASS" --server.port="$PORT" $APP_ARGS \
+        > "$OUT_DIR/train-$(basename "$archive").log" 2>&1 || true
+    if [[ ! -f "$archive" ]]; then
+        echo "Архив $archive не создан, см. $OUT_DIR/train-$(basename "$archive").log" >&2
+        exit 1
+    fi
+}
+
+# Успешный логин - перенаправление не на страницу логина
+login_ok() {
+    local result
+    result=$(curl -s -o /dev/null -w '%{http_code} %{redirect_url}' \
+        --data-urlencode "username=$LOGIN_USER" --data-urlencode "password=$LOGIN_PASSWORD" \
+        "http://localhost:$PORT/process_login" 2>/dev/null) || return 1
+    [[ "$result" == 302* && "$result" != *"/login"* ]]
+}
+
+# Один запуск: печатает "миллисекунды RSS_КБ"
+run_once() {
+    local mode=$1 run=$2 options start pid elapsed rss
+    options=$(mode_options "$mode")
+    start=$(now_ms)
+    # shellcheck disable=SC2086
+    "$JAVA" $JAVA_OPTS $options -cp "$CLASSPATH" "$MAIN_CLASS" --server.port="$PORT" $THROTTLE_ARGS $APP_ARGS \
+        > "$OUT_DIR/$mode-$run.log" 2>&1 &
+    pid=$!
+    until login_ok; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Приложение ($mode, запуск $run) завершилось, см. $OUT_DIR/$mode-$run.log" >&2
+            exit 1
+        fi
+        if (( $(now_ms) - start > TIMEOUT * 1000 )); then
+            kill "$pid"
+            echo "Нет успешного логина за $TIMEOUT с ($mode, запуск $run)" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+for mode in $MODES; do
+    case "$mode" in
+        cds) train "$APP_DIR/jvm.jsa" "" ;;
+        aot-cds) train "$APP_DIR/application.jsa" "-Dspring.aot.enabled=true" ;;
+    esac
+done
+
+RESULTS="$OUT_DIR/results.csv"
+echo "mode,run,login_ms,rss_kb" > "$RESULTS"
+for mode in $MODES; do
+    for run in $(seq 1 "$RUNS"); do
+        result=$(run_once "$mode" "$run")
+        read -r elapsed rss <<< "$result"
+        echo "$mode,$run,$elapsed,$rss" >> "$RESULTS"
+        echo "$mode #$run: логин через $elapsed мс, RSS $(( rss / 1024 )) МБ"
+    done
+done
+
+echo
+printf "%-8s %16s %14s\n" "mode" "login p50, ms" "RSS p50, MB"
+for mode in $MODES; do
+    elapsed=$(awk -F, -v m="$mode" '$1 == m { print $3 }' "$RESULTS" | median)
+    rss=$(awk -F, -v m="$mode" '$1 == m { print $4 }' "$RESULTS" | median)
+    printf "%-8s %16d %14d\n" "$mode" "$elapsed" "$(( rss / 1024 ))"
+done
+echo "Результаты: $RESULTS"
@@ -0,0 +1,81 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.service.AccessTokenService;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Фильтр stateless-аутентификации для /api/** по заголовку "Authorization: Bearer ...".
+ * Проверка токена - одна операция HMAC, без обращения к базе данных и без HttpSession:
+ * контекст безопасности устанавливается только на время запроса и не сохраняется.
+ * Запросы без Bearer-токена проходят дальше и аутентифицируются сессией, как раньше.
+ */
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    // Логгер для отслеживания аутентификации по токену.
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenAuthenticationFilter.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+
+    /**
+     * Конструктор.
+     * @param accessTokenService Сервис токенов доступа.
+     */
+    public AccessTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    // Контекст по токену не сохраняется между диспетчеризациями: повторная асинхронная (ответ Mono, /api/reactive/**)
+    // без фильтра шла бы анонимной и отклонялась правилами доступа
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Optional<User> user = accessTokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        if (user.isEmpty()) {
+            logger.debug("Отклонен недействительный токен для {}", request.getRequestURI());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                user.get(), null, user.get().getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import ru.kata.spring_boot_security_demo.util.PasswordHashingRejectedException;
+
+import java.io.IOException;
+
+/**
+ * Класс-обработчик неудачной аутентификации пользователя.
+ * При перегрузке пула хэширования отвечает 503 с Retry-After, иначе штрафует попытку
+ * в LoginThrottle и перенаправляет на страницу логина.
+ */
+@Component
+public class FailureUserHandler implements AuthenticationFailureHandler {
+
+    // Логгер для отслеживания событий аутентификации.
+    private static final Logger logger = LoggerFactory.getLogger(FailureUserHandler.class);
+
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param loginThrottle Ограничитель попыток логина.
+     */
+    @Autowired
+    public FailureUserHandler(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Метод вызывается при неудачной аутентификации.
+     * @param httpServletRequest Запрос от клиента.
+     * @param httpServletResponse Ответ сервера.
+     * @param exception Причина неудачи.
+     * @throws IOException Если возникает ошибка ввода-вывода.
+     */
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                                        AuthenticationException exception) throws IOException {
+        if (exception instanceof PasswordHashingRejectedException rejected) {
+            logger.warn("Логин отклонен из-за перегрузки пула хэширования");
+            httpServletResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()));
+            httpServletResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            httpServletResponse.setContentType("text/plain;charset=UTF-8");
+            httpServletResponse.getWriter().write("Too many login attempts in progress, retry later");
+            return;
+        }
+        logger.info("Неудачная аутентификация: {}", exception.getMessage());
+        // Неудачная попытка дорожает для атакующего: штраф списывается с IP и email
+        loginThrottle.recordFailure(httpServletRequest.getRemoteAddr(), httpServletRequest.getParameter("username"));
+        httpServletResponse.sendRedirect("/login?error");
+    }
+}
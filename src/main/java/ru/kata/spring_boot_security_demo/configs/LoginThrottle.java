@@ -0,0 +1,96 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.util.StripedRateLimiter;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты попыток логина по IP-адресу клиента и по введенному email.
+ * Каждая попытка списывает токен в обоих ведрах, неудачная - дополнительно штрафные токены,
+ * поэтому перебор паролей быстро упирается в 429, не доходя до BCrypt и запроса к базе.
+ */
+@Component
+public class LoginThrottle {
+
+    // Логгер для отслеживания ограничений логина.
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private final StripedRateLimiter byIp;
+    private final StripedRateLimiter byAccount;
+    private final int failurePenalty;
+    private final Counter throttledCounter;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param stripes Количество слотов в каждом ограничителе.
+     * @param ipPerMinute Попыток в минуту с одного IP.
+     * @param ipBurst Попыток подряд с одного IP.
+     * @param accountPerMinute Попыток в минуту на один email.
+     * @param accountBurst Попыток подряд на один email.
+     * @param failurePenalty Сколько дополнительных токенов списывает неудачная попытка.
+     * @param maxDelay Максимальная накопленная блокировка.
+     * @param meterRegistry Реестр метрик.
+     */
+    @Autowired
+    public LoginThrottle(@Value("${app.security.login-throttle.stripes:65536}") int stripes,
+                         @Value("${app.security.login-throttle.ip-per-minute:30}") int ipPerMinute,
+                         @Value("${app.security.login-throttle.ip-burst:10}") int ipBurst,
+                         @Value("${app.security.login-throttle.account-per-minute:6}") int accountPerMinute,
+                         @Value("${app.security.login-throttle.account-burst:5}") int accountBurst,
+                         @Value("${app.security.login-throttle.failure-penalty:2}") int failurePenalty,
+                         @Value("${app.security.login-throttle.max-delay:15m}") Duration maxDelay,
+                         MeterRegistry meterRegistry) {
+        logger.info("Инициализация LoginThrottle: ip={}/мин, email={}/мин", ipPerMinute, accountPerMinute);
+        this.byIp = new StripedRateLimiter(stripes, ipPerMinute, ipBurst, maxDelay);
+        this.byAccount = new StripedRateLimiter(stripes, accountPerMinute, accountBurst, maxDelay);
+        this.failurePenalty = failurePenalty;
+        this.throttledCounter = Counter.builder("login.throttled").register(meterRegistry);
+    }
+
+    /**
+     * Проверяет, можно ли выполнить попытку логина.
+     * @param ip IP-адрес клиента.
+     * @param email Введенный email.
+     * @return 0, если попытка разрешена, иначе через сколько секунд можно повторить.
+     */
+    public long tryAcquire(String ip, String email) {
+        long wait = byIp.tryAcquire(ip);
+        if (wait == 0 && email != null) {
+            wait = byAccount.tryAcquire(email);
+        }
+        if (wait > 0) {
+            throttledCounter.increment();
+            logger.warn("Попытка логина ограничена: ip={}, email={}", ip, email);
+            return Math.max(1, Duration.ofNanos(wait).toSeconds() + 1);
+        }
+        return 0;
+    }
+
+    /**
+     * Возвращает текст ответа 429 на попытку сверх лимита.
+     * @param retryAfter Через сколько секунд можно повторить.
+     * @return Текст ответа.
+     */
+    public static String rejectionMessage(long retryAfter) {
+        return "Too many login attempts, retry in " + retryAfter + " s";
+    }
+
+    /**
+     * Штрафует IP и email за неудачную попытку.
+     * @param ip IP-адрес клиента.
+     * @param email Введенный email.
+     */
+    public void recordFailure(String ip, String email) {
+        byIp.penalize(ip, failurePenalty);
+        if (email != null) {
+            byAccount.penalize(email, failurePenalty);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Фильтр перед обработкой формы логина: отклоняет попытки сверх лимита ответом 429
+ * еще до загрузки пользователя и проверки пароля.
+ */
+public class LoginThrottlingFilter extends OncePerRequestFilter {
+
+    private final LoginThrottle loginThrottle;
+    private final String loginProcessingUrl;
+
+    /**
+     * Конструктор.
+     * @param loginThrottle Ограничитель попыток логина.
+     * @param loginProcessingUrl URL обработки формы логина.
+     */
+    public LoginThrottlingFilter(LoginThrottle loginThrottle, String loginProcessingUrl) {
+        this.loginThrottle = loginThrottle;
+        this.loginProcessingUrl = loginProcessingUrl;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().equals(request.getContextPath() + loginProcessingUrl);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long retryAfter = loginThrottle.tryAcquire(request.getRemoteAddr(), request.getParameter("username"));
+        if (retryAfter > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write(LoginThrottle.rejectionMessage(retryAfter));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс конфигурации пула потоков для хэширования паролей.
+ * Пул фиксированного размера с ограниченной очередью отделяет вычисления BCrypt от потоков Tomcat.
+ */
+@Configuration
+public class PasswordHashingConfig {
+
+    // Логгер для отслеживания конфигурации пула.
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingConfig.class);
+
+    /**
+     * Бин пула потоков для хэширования паролей.
+     * Размер очереди и текущее число активных задач публикуются как метрики.
+     * @param threads Количество потоков (0 - по числу ядер).
+     * @param queueCapacity Емкость очереди ожидающих задач.
+     * @param meterRegistry Реестр метрик.
+     * @return Пул потоков.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(@Value("${app.security.hashing.threads:0}") int threads,
+                                                      @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                                      MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        logger.info("Создание пула хэширования паролей: потоков={}, очередь={}", poolSize, queueCapacity);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Бин пула потоков для хэширования паролей при массовом импорте.
+     * Отдельный пул не занимает очередь логинов; при заполнении очереди задачу выполняет
+     * вызывающий поток, что естественно притормаживает чтение входных данных.
+     * @param threads Количество потоков (0 - по числу ядер).
+     * @return Пул потоков.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor userImportHashingExecutor(@Value("${app.users.import.hashing-threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        logger.info("Создание пула хэширования для импорта: потоков={}", poolSize);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
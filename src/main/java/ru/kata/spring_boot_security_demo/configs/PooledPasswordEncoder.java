@@ -0,0 +1,116 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.kata.spring_boot_security_demo.util.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Шифровщик паролей, выполняющий хэширование и проверку в отдельном ограниченном пуле потоков.
+ * Потоки Tomcat только ждут результата, а число одновременных вычислений BCrypt ограничено размером пула.
+ * При переполнении очереди запрос отклоняется сразу с PasswordHashingRejectedException.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    // Логгер для отслеживания операций хэширования.
+    private static final Logger logger = LoggerFactory.getLogger(PooledPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * Конструктор.
+     * @param delegate Шифровщик, выполняющий реальное хэширование.
+     * @param executor Пул потоков для хэширования.
+     * @param timeout Максимальное время ожидания результата.
+     * @param retryAfterSeconds Значение Retry-After при отказе.
+     * @param meterRegistry Реестр метрик.
+     */
+    public PooledPasswordEncoder(PasswordEncoder delegate, ThreadPoolExecutor executor, Duration timeout,
+                                 long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.encodeTimer = Timer.builder("password.hashing")
+                .tag("operation", "encode")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing")
+                .tag("operation", "matches")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Проверка необходимости перехэширования не требует вычислений и выполняется в текущем потоке.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Возвращает шифровщик, выполняющий реальное хэширование.
+     * Нужен массовым операциям, которые распределяют хэширование по собственному пулу.
+     * @return Шифровщик без пула.
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full", retryAfterSeconds);
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException("Password hashing timed out", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingRejectedException("Password hashing interrupted", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            logger.error("Ошибка хэширования пароля: {}", e.getCause().getMessage());
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Класс конфигурации неблокирующего доступа к базе данных (R2DBC) для чтения пользователей.
+ * Пул R2DBC не регистрируется бином ConnectionFactory: при таком бине Spring Boot не создает
+ * JDBC DataSource, на котором работают JPA и Flyway. Поэтому автонастройка R2DBC выключена
+ * (spring.autoconfigure.exclude), а наружу отдается только DatabaseClient.
+ * Соединения открываются лениво при первом запросе: старт приложения не зависит от R2DBC.
+ */
+@Configuration
+public class ReactiveDataConfig implements DisposableBean {
+
+    // Логгер для отслеживания конфигурации R2DBC.
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveDataConfig.class);
+
+    private static final String POOL_NAME = "users-reactive";
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * Бин неблокирующего клиента базы данных поверх пула соединений R2DBC.
+     * @param url R2DBC URL базы данных.
+     * @param username Пользователь базы данных.
+     * @param password Пароль базы данных.
+     * @param maxSize Максимальный размер пула.
+     * @param maxAcquireTime Максимальное ожидание свободного соединения.
+     * @param maxIdleTime Время простоя, после которого соединение закрывается.
+     * @param meterRegistry Реестр метрик.
+     * @return Клиент базы данных.
+     */
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(
+            @Value("${app.reactive.url}") String url,
+            @Value("${app.reactive.username:${spring.datasource.username:}}") String username,
+            @Value("${app.reactive.password:${spring.datasource.password:}}") String password,
+            @Value("${app.reactive.pool.max-size:20}") int maxSize,
+            @Value("${app.reactive.pool.max-acquire-time:5s}") Duration maxAcquireTime,
+            @Value("${app.reactive.pool.max-idle-time:30m}") Duration maxIdleTime,
+            MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name(POOL_NAME)
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .maxIdleTime(maxIdleTime)
+                .build());
+        connectionPool.getMetrics().ifPresent(metrics -> registerMetrics(metrics, meterRegistry));
+        logger.info("Пул R2DBC {}: {}, максимум {} соединений", POOL_NAME, url, maxSize);
+        return DatabaseClient.create(connectionPool);
+    }
+
+    /**
+     * Закрывает пул соединений R2DBC при остановке контекста.
+     */
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    // Имена метрик совпадают с метриками пула, которые Spring Boot публикует для бинов ConnectionFactory
+    private static void registerMetrics(PoolMetrics metrics, MeterRegistry meterRegistry) {
+        gauge(meterRegistry, metrics, "r2dbc.pool.acquired", "Соединения, выданные из пула", PoolMetrics::acquiredSize);
+        gauge(meterRegistry, metrics, "r2dbc.pool.idle", "Свободные соединения пула", PoolMetrics::idleSize);
+        gauge(meterRegistry, metrics, "r2dbc.pool.pending", "Запросы, ожидающие соединения", PoolMetrics::pendingAcquireSize);
+        gauge(meterRegistry, metrics, "r2dbc.pool.max.allocated", "Максимальный размер пула", PoolMetrics::getMaxAllocatedSize);
+    }
+
+    private static void gauge(MeterRegistry meterRegistry, PoolMetrics metrics, String name, String description,
+                              ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, metrics, value)
+                .description(description)
+                .tag("name", POOL_NAME)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,128 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс конфигурации разделения чтения и записи (включается app.datasource.replicas.enabled=true).
+ * Транзакции с readOnly = true выполняются на репликах из app.datasource.replicas.urls, остальные -
+ * на основной базе spring.datasource.*. Соединение берется лениво при первом запросе, когда признак
+ * readOnly транзакции уже известен (LazyConnectionDataSourceProxy).
+ * Read-your-writes отслеживается по имени аутентифицированного пользователя: после своей записи пользователь
+ * читает с основной базы, пока реплика ее не догонит, а остальные продолжают читать с реплик.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    // Логгер для отслеживания конфигурации реплик.
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaConfig.class);
+
+    /**
+     * Бин пула соединений основной базы (настройки spring.datasource.* и spring.datasource.hikari.*).
+     * @param properties Настройки основной базы.
+     * @return Пул основной базы.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Бин маршрутизации чтения по репликам с проверкой отставания.
+     * @param primaryDataSource Пул основной базы.
+     * @param urls JDBC URL реплик.
+     * @param username Пользователь реплик.
+     * @param password Пароль реплик.
+     * @param poolSize Максимальный размер пула каждой реплики.
+     * @param maxLag Максимально допустимое отставание реплики.
+     * @param checkInterval Интервал проверки отставания.
+     * @param lagQuery Запрос отставания реплики.
+     * @param meterRegistry Реестр метрик.
+     * @return Источник соединений для чтения.
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${app.datasource.replicas.urls:}") List<String> urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${app.datasource.replicas.max-lag:5s}") Duration maxLag,
+            @Value("${app.datasource.replicas.check-interval:2s}") Duration checkInterval,
+            @Value("${app.datasource.replicas.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+            MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName(name);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.put(name, replica);
+        }
+        if (replicas.isEmpty()) {
+            logger.warn("app.datasource.replicas.urls не задан: все чтения выполняются на основной базе");
+        }
+        logger.info("Чтение из реплик: {}, максимальное отставание {}, проверка каждые {}",
+                replicas.size(), maxLag, checkInterval);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag,
+                lagQuery, ReadReplicaConfig::currentWriter, meterRegistry);
+        routing.start(checkInterval);
+        return routing;
+    }
+
+    /**
+     * Бин источника данных приложения: запись на основную базу, readOnly-транзакции - на реплики.
+     * @param replicaRoutingDataSource Маршрутизация чтения.
+     * @return Источник данных для JPA и JDBC.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                replicaRoutingDataSource.trackingPrimary());
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    // Автор записи - аутентифицированный пользователь запроса; фоновые задачи и анонимные запросы не отслеживаются
+    private static String currentWriter() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,283 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Источник соединений для читающих транзакций: пул реплик с проверкой отставания и откатом на основную базу.
+ * Реплики выбираются по кругу среди исправных. Исправной считается реплика, которая на последней проверке
+ * отставала не больше maxLag. Read-your-writes обеспечивается для каждого автора записей отдельно (writerKey,
+ * например имя пользователя): его чтение идет на реплику, только если момент проверки минус отставание
+ * не раньше возврата его последнего соединения основной базы. Записи других пользователей и фоновых задач
+ * (writerKey = null) его чтений не задерживают.
+ * Если подходящей реплики нет или она не выдала соединение, чтение выполняется на основной базе.
+ * Используется как readOnlyDataSource в LazyConnectionDataSourceProxy; соединения основной базы
+ * для записи должны выдаваться через trackingPrimary().
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // Логгер для отслеживания состояния реплик.
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Seconds_Behind_Source округляется вниз до секунды, поэтому к отставанию добавляется запас.
+    private static final long LAG_RESOLUTION_MILLIS = 1000;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final Supplier<String> writerKey;
+    // Момент последней записи по авторам; записи старше отставания любой исправной реплики удаляются при проверке
+    private final Map<String, Long> lastWriteMillis = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+    private ScheduledExecutorService checker;
+
+    /**
+     * Конструктор. До первой проверки все реплики считаются недоступными.
+     * @param primary Основная база.
+     * @param replicas Реплики по именам.
+     * @param maxLag Максимально допустимое отставание реплики.
+     * @param lagQuery Запрос отставания реплики в секундах (столбец Seconds_Behind_Source или первый столбец).
+     * @param writerKey Автор текущих записей и чтений (null - не отслеживать read-your-writes).
+     * @param meterRegistry Реестр метрик.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    String lagQuery, Supplier<String> writerKey, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.writerKey = writerKey;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        });
+        this.replicaReads = Counter.builder("datasource.reads").tag("target", "replica").register(meterRegistry);
+        this.primaryReads = Counter.builder("datasource.reads").tag("target", "primary").register(meterRegistry);
+    }
+
+    /**
+     * Запускает периодическую проверку отставания реплик в фоновом потоке.
+     * @param interval Интервал между проверками.
+     */
+    public synchronized void start(Duration interval) {
+        if (checker != null || replicas.isEmpty()) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Проверяет отставание каждой реплики и обновляет ее состояние.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long checkedAt = System.currentTimeMillis();
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                Double lag = readLag(resultSet);
+                if (lag == null) {
+                    replica.markDown("репликация не запущена");
+                } else if (lag * 1000 > maxLagMillis) {
+                    replica.markDown("отставание " + lag + " с");
+                    replica.lagSeconds = lag;
+                } else {
+                    replica.markUp(lag, checkedAt - (long) (lag * 1000) - LAG_RESOLUTION_MILLIS);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+        forgetCaughtUpWrites();
+    }
+
+    /**
+     * Возвращает основную базу, отмечающую момент возврата каждого соединения как момент последней записи
+     * текущего автора.
+     * @return Основная база для пишущих транзакций.
+     */
+    public DataSource trackingPrimary() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return tracking(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return tracking(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Выдает соединение исправной реплики, уже содержащей последнюю запись текущего автора,
+     * или, если такой нет, основной базы.
+     * @return Соединение для чтения.
+     * @throws SQLException Если не удалось получить соединение основной базы.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty()) {
+            String writer = writerKey.get();
+            long lastWrite = writer == null ? Long.MIN_VALUE : lastWriteMillis.getOrDefault(writer, Long.MIN_VALUE);
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.up || replica.appliedUpToMillis < lastWrite) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing does not support explicit credentials");
+    }
+
+    /**
+     * Останавливает проверку и закрывает пулы реплик.
+     */
+    @Override
+    public synchronized void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Не удалось закрыть пул реплики {}: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Connection tracking(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        String writer = writerKey.get();
+                        if (writer != null) {
+                            lastWriteMillis.merge(writer, System.currentTimeMillis(), Math::max);
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    // Запись старше момента, до которого догнала каждая исправная реплика, уже не влияет на выбор реплики.
+    // Реплика, которая станет исправной позже, будет отставать не больше maxLag от момента своей проверки.
+    private void forgetCaughtUpWrites() {
+        long caughtUp = System.currentTimeMillis() - maxLagMillis - LAG_RESOLUTION_MILLIS;
+        for (Replica replica : replicas) {
+            if (replica.up) {
+                caughtUp = Math.min(caughtUp, replica.appliedUpToMillis);
+            }
+        }
+        long threshold = caughtUp;
+        lastWriteMillis.values().removeIf(lastWrite -> lastWrite < threshold);
+    }
+
+    // Отставание в секундах или null, если реплика не реплицирует (нет строки или значение NULL).
+    private static Double readLag(ResultSet resultSet) throws SQLException {
+        if (!resultSet.next()) {
+            return null;
+        }
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int column = 1;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            if (label.equalsIgnoreCase("Seconds_Behind_Source") || label.equalsIgnoreCase("Seconds_Behind_Master")) {
+                column = i;
+                break;
+            }
+        }
+        double lag = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : lag;
+    }
+
+    // Состояние реплики по результатам последней проверки.
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean up;
+        private volatile long appliedUpToMillis = Long.MIN_VALUE;
+        private volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void markUp(double lag, long appliedUpTo) {
+            if (!up) {
+                logger.info("Реплика {} доступна для чтения, отставание {} с", name, lag);
+            }
+            lagSeconds = lag;
+            appliedUpToMillis = appliedUpTo;
+            up = true;
+        }
+
+        void markDown(String reason) {
+            if (up) {
+                logger.warn("Реплика {} исключена из чтения: {}", name, reason);
+            } else {
+                logger.debug("Реплика {} недоступна: {}", name, reason);
+            }
+            up = false;
+            lagSeconds = Double.NaN;
+        }
+    }
+}
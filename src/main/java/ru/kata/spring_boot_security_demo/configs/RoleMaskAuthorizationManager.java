@@ -0,0 +1,113 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import ru.kata.spring_boot_security_demo.models.RoleAuthorities;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Проверка ролей для URL-правил через битовую маску вместо сравнения строк.
+ * Правило компилируется в маску при старте, а проверка запроса - одна операция AND
+ * над маской principal, без аллокаций. Для principal другого типа маска собирается из authority.
+ * Роли, которым не хватило бита (больше 64 ролей), проверяются явным сравнением имен authority.
+ */
+public final class RoleMaskAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final long requiredMask;
+    // Требуемые роли без бита в маске
+    private final String[] unmappedRoles;
+
+    private RoleMaskAuthorizationManager(long requiredMask, String[] unmappedRoles) {
+        this.requiredMask = requiredMask;
+        this.unmappedRoles = unmappedRoles;
+    }
+
+    /**
+     * Аналог hasRole: доступ при наличии роли.
+     * @param role Роль без префикса ROLE_.
+     * @return Менеджер авторизации.
+     */
+    public static RoleMaskAuthorizationManager hasRole(String role) {
+        return hasAnyRole(role);
+    }
+
+    /**
+     * Аналог hasAnyRole: доступ при наличии любой из ролей.
+     * @param roles Роли без префикса ROLE_.
+     * @return Менеджер авторизации.
+     */
+    public static RoleMaskAuthorizationManager hasAnyRole(String... roles) {
+        long mask = 0L;
+        List<String> unmapped = new ArrayList<>();
+        for (String role : roles) {
+            String roleName = ROLE_PREFIX + role;
+            long bit = RoleAuthorities.maskOf(roleName);
+            if (bit == 0L) {
+                unmapped.add(roleName);
+            }
+            mask |= bit;
+        }
+        return new RoleMaskAuthorizationManager(mask, unmapped.toArray(String[]::new));
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated()) {
+            return DENIED;
+        }
+        if ((principalMask(current) & requiredMask) != 0) {
+            return GRANTED;
+        }
+        return unmappedRoles.length > 0 && hasUnmappedRole(current) ? GRANTED : DENIED;
+    }
+
+    /**
+     * Устаревший вариант authorize, оставленный для контракта AuthorizationManager.
+     * @deprecated Используйте {@link #authorize(Supplier, RequestAuthorizationContext)}.
+     */
+    @Override
+    @Deprecated
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return authorize(authentication, context) == GRANTED ? GRANTED : DENIED;
+    }
+
+    private boolean hasUnmappedRole(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            for (String roleName : unmappedRoles) {
+                if (roleName.equals(authority.getAuthority())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long principalMask(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getRoleMask();
+        }
+        long mask = 0L;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            mask |= RoleAuthorities.bitOf(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return "RoleMaskAuthorizationManager[mask=" + Long.toBinaryString(requiredMask) + "]";
+    }
+}
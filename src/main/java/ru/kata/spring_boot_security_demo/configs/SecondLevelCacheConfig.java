@@ -0,0 +1,85 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Класс конфигурации кэша второго уровня Hibernate (включается app.jpa.second-level-cache.enabled=true).
+ * Кэшируются сущность Role и коллекция User.role; регионы создаются в локальном JCache-провайдере Caffeine
+ * с размером и временем жизни из настроек. Включается сбор статистики Hibernate, поэтому попадания
+ * и промахи по регионам доступны как метрики hibernate.second.level.cache.requests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.jpa.second-level-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    // Логгер для отслеживания конфигурации кэша.
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+
+    /**
+     * Бин менеджера JCache с регионами кэша второго уровня.
+     * @param roleMaxSize Максимальное количество ролей в кэше.
+     * @param roleTtl Время жизни записи роли.
+     * @param userRolesMaxSize Максимальное количество коллекций ролей пользователей в кэше.
+     * @param userRolesTtl Время жизни коллекции ролей пользователя.
+     * @return Менеджер кэшей.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.jpa.second-level-cache.role.max-size:100}") long roleMaxSize,
+            @Value("${app.jpa.second-level-cache.role.ttl:1h}") Duration roleTtl,
+            @Value("${app.jpa.second-level-cache.user-roles.max-size:100000}") long userRolesMaxSize,
+            @Value("${app.jpa.second-level-cache.user-roles.ttl:10m}") Duration userRolesTtl) {
+        // Собственный менеджер на контекст: общий менеджер провайдера делят все контексты JVM (тесты, devtools)
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(SecondLevelCacheConfig.class.getName() + "-" + UUID.randomUUID()),
+                        SecondLevelCacheConfig.class.getClassLoader());
+        createRegion(cacheManager, Role.CACHE_REGION, roleMaxSize, roleTtl);
+        createRegion(cacheManager, User.ROLES_CACHE_REGION, userRolesMaxSize, userRolesTtl);
+        return cacheManager;
+    }
+
+    /**
+     * Передает Hibernate менеджер кэшей и включает кэш второго уровня и статистику.
+     * @param hibernateCacheManager Менеджер кэшей.
+     * @return Настройщик свойств Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Регионы создаются заранее; неизвестный регион означает ошибку в маппинге
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, String region, long maxSize, Duration ttl) {
+        logger.info("Регион кэша второго уровня {}: maxSize={}, ttl={}", region, maxSize, ttl);
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+    }
+}
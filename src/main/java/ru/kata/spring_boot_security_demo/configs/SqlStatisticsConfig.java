@@ -0,0 +1,117 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+import ru.kata.spring_boot_security_demo.util.SqlStatistics;
+
+import javax.sql.DataSource;
+import java.util.function.Supplier;
+
+/**
+ * Класс конфигурации подсчета SQL-запросов (включается app.sql.statistics.enabled=true, по умолчанию выключен).
+ * Источник данных приложения оборачивается JDBC-прокси с SqlStatisticsListener; статистика собирается
+ * на каждый HTTP-запрос (SqlStatisticsFilter) и на каждый вызов метода репозитория Spring Data.
+ * Прочитанные строки считаются только при app.sql.statistics.read-rows=true: для этого проксируется
+ * каждый ResultSet, и каждый вызов next() проходит через рефлексию.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql.statistics.enabled", havingValue = "true")
+public class SqlStatisticsConfig {
+
+    // Логгер для отслеживания конфигурации подсчета запросов.
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsConfig.class);
+
+    /**
+     * Оборачивает бин dataSource JDBC-прокси, считающим запросы и измененные строки.
+     * @param readRows Считать ли прочитанные строки через прокси ResultSet.
+     * @return Постпроцессор бинов.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(
+            @Value("${app.sql.statistics.read-rows:false}") boolean readRows) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)
+                        || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                logger.info("Подсчет SQL-запросов включен для источника данных {}, прочитанные строки: {}",
+                        beanName, readRows);
+                SqlStatisticsListener listener = new SqlStatisticsListener();
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource).listener(listener);
+                if (readRows) {
+                    builder.methodListener(listener).proxyResultSet();
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * Добавляет в каждый репозиторий Spring Data перехватчик, считающий запросы вызова метода.
+     * @param meterRegistryProvider Реестр метрик (получается при первом вызове).
+     * @return Постпроцессор бинов.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatisticsRepositoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        Supplier<MeterRegistry> meterRegistry = SingletonSupplier.of(meterRegistryProvider::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    repositoryInterceptor(information.getRepositoryInterface().getSimpleName(),
+                                            meterRegistry))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Бин регистрации фильтра статистики раньше фильтров безопасности, чтобы учитывать и загрузку пользователя.
+     * @param meterRegistry Реестр метрик.
+     * @param budget Допустимое количество SQL-запросов на HTTP-запрос.
+     * @return Регистрация фильтра.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.statistics.request-budget:10}") int budget) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(meterRegistry, budget));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private static MethodInterceptor repositoryInterceptor(String repository, Supplier<MeterRegistry> meterRegistry) {
+        return invocation -> {
+            String target = repository + "." + invocation.getMethod().getName();
+            SqlStatistics statistics = SqlStatistics.start(target);
+            try {
+                return invocation.proceed();
+            } finally {
+                statistics.stop();
+                if (statistics.getQueries() > 0) {
+                    statistics.publish(meterRegistry.get(), "repository", target);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.kata.spring_boot_security_demo.util.SqlStatistics;
+
+import java.io.IOException;
+
+/**
+ * Фильтр, считающий SQL-запросы каждого HTTP-запроса. Итог сохраняется в атрибуте запроса
+ * REQUEST_ATTRIBUTE и публикуется метриками sql.* с тегом шаблона URL. Запрос, выполнивший
+ * больше запросов к базе, чем бюджет, отмечается в логе с самыми повторяющимися запросами
+ * (признак N+1) и метрикой sql.budget.exceeded.
+ * Запросы, выполненные в других потоках (асинхронная выгрузка), не учитываются.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    /**
+     * Атрибут запроса со статистикой SqlStatistics после его обработки.
+     */
+    public static final String REQUEST_ATTRIBUTE = SqlStatisticsFilter.class.getName() + ".statistics";
+
+    // Логгер для отслеживания запросов сверх бюджета.
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+
+    /**
+     * Конструктор.
+     * @param meterRegistry Реестр метрик.
+     * @param budget Допустимое количество SQL-запросов на HTTP-запрос.
+     */
+    public SqlStatisticsFilter(MeterRegistry meterRegistry, int budget) {
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.stop();
+            request.setAttribute(REQUEST_ATTRIBUTE, statistics);
+            if (statistics.getQueries() > 0) {
+                report(request, statistics);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String target = request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN");
+        statistics.publish(meterRegistry, "request", target);
+        if (statistics.getQueries() > budget) {
+            Counter.builder("sql.budget.exceeded").tag("target", target).register(meterRegistry).increment();
+            logger.warn("Превышен бюджет SQL-запросов ({}) - {}; повторяющиеся запросы: {}",
+                    budget, statistics, statistics.repeatedStatements(3));
+        } else {
+            logger.debug("{}", statistics);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kata.spring_boot_security_demo.util.SqlStatistics;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Слушатель JDBC-прокси: передает каждый выполненный запрос и каждую прочитанную строку в SqlStatistics.
+ * Прочитанные строки приходят только при проксировании ResultSet (app.sql.statistics.read-rows=true).
+ * Тексты запросов с временем выполнения пишутся в лог на уровне trace вместо hibernate.show_sql.
+ */
+public class SqlStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    // Логгер для вывода выполненных запросов (включается уровнем trace).
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsListener.class);
+
+    private static final String START_NANOS = "sqlStatistics.startNanos";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsed = start == null ? 0 : System.nanoTime() - start;
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        long affectedRows = affectedRows(execInfo.getResult());
+        SqlStatistics.recordQuery(sql, affectedRows, elapsed);
+        if (logger.isTraceEnabled()) {
+            logger.trace("{} мкс, изменено строк {}, пакет {}: {}", elapsed / 1_000, affectedRows,
+                    execInfo.isBatch() ? execInfo.getBatchSize() : 1, sql);
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && Boolean.TRUE.equals(executionContext.getResult())
+                && executionContext.getMethod().getName().equals("next")) {
+            SqlStatistics.recordRow();
+        }
+    }
+
+    // Результат executeUpdate / executeBatch; для запросов с ResultSet строки считаются в afterMethod.
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Класс конфигурации ускоренного старта.
+ * EntityManagerFactory строится в фоновом потоке (репозитории Spring Data инициализируются отложенно,
+ * spring.data.jpa.repositories.bootstrap-mode=deferred), пока основной поток создает веб-слой и безопасность.
+ * Тот же исполнитель заполняет индексы в памяти после старта (StartupWarmup).
+ */
+@Configuration
+public class StartupConfig {
+
+    // Логгер для отслеживания конфигурации старта.
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * Бин исполнителя разовых задач старта: отдельный поток-демон на задачу, без пула
+     * (виртуальный поток при spring.threads.virtual.enabled=true).
+     * @param environment Окружение приложения.
+     * @return Исполнитель задач старта.
+     */
+    @Bean
+    public AsyncTaskExecutor startupTaskExecutor(Environment environment) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("startup-");
+        executor.setDaemon(true);
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        return executor;
+    }
+
+    /**
+     * Бин настройки фонового построения EntityManagerFactory.
+     * @param startupTaskExecutor Исполнитель задач старта.
+     * @return Настройка построителя EntityManagerFactory.
+     */
+    @Bean
+    public EntityManagerFactoryBuilderCustomizer entityManagerFactoryBackgroundBootstrap(
+            @Qualifier("startupTaskExecutor") AsyncTaskExecutor startupTaskExecutor) {
+        logger.info("EntityManagerFactory будет построен в фоновом потоке");
+        return builder -> builder.setBootstrapExecutor(startupTaskExecutor);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.service.PasswordUpgradeService;
+
+/**
+ * Провайдер аутентификации, который после успешного логина
+ * перехэширует устаревший пароль в фоне, не задерживая ответ пользователю.
+ */
+public class UpgradingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    // Логгер для отслеживания аутентификации.
+    private static final Logger logger = LoggerFactory.getLogger(UpgradingAuthenticationProvider.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordUpgradeService passwordUpgradeService;
+
+    /**
+     * Конструктор.
+     * @param passwordEncoder Шифровщик паролей.
+     * @param passwordUpgradeService Сервис фонового перехэширования.
+     */
+    public UpgradingAuthenticationProvider(PasswordEncoder passwordEncoder, PasswordUpgradeService passwordUpgradeService) {
+        super(passwordEncoder);
+        this.passwordEncoder = passwordEncoder;
+        this.passwordUpgradeService = passwordUpgradeService;
+    }
+
+    /**
+     * Создает успешную аутентификацию и, если хэш устарел (нет префикса алгоритма
+     * или cost ниже настроенного), ставит перехэширование в фоновую очередь.
+     */
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (user instanceof User person && authentication.getCredentials() != null
+                && passwordEncoder.upgradeEncoding(person.getPassword())) {
+            logger.debug("Хэш пароля пользователя {} устарел", person.getEmail());
+            passwordUpgradeService.upgradeAsync(person.getId(), person.getPassword(),
+                    authentication.getCredentials().toString());
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Класс конфигурации режима виртуальных потоков (spring.threads.virtual.enabled=true).
+ * Запросы Tomcat обрабатываются виртуальными потоками средствами Spring Boot; здесь на виртуальные
+ * потоки переводится асинхронная обработка MVC (потоковая выгрузка) и включается отслеживание
+ * закрепления виртуальных потоков за несущими (VirtualThreadPinningMonitor).
+ * Пулы хэширования паролей остаются на платформенных потоках: их размер ограничивает нагрузку на CPU.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    // Логгер для отслеживания конфигурации виртуальных потоков.
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Выполняет асинхронные обработчики MVC в виртуальных потоках.
+     * @param configurer Настройка асинхронной обработки.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        logger.info("Асинхронная обработка MVC выполняется в виртуальных потоках");
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(true);
+        configurer.setTaskExecutor(executor);
+    }
+
+    /**
+     * Бин отслеживания закрепления виртуальных потоков (выключается app.threads.virtual.pinning-monitor.enabled=false).
+     * @param meterRegistry Реестр метрик.
+     * @param threshold Минимальная длительность закрепления, о которой сообщается.
+     * @param stackDepth Количество кадров стека в логе.
+     * @return Запущенный монитор.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.threads.virtual.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.threads.virtual.pinning-monitor.threshold:20ms}") Duration threshold,
+            @Value("${app.threads.virtual.pinning-monitor.stack-depth:30}") int stackDepth) {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, threshold, stackDepth);
+        monitor.start();
+        return monitor;
+    }
+}
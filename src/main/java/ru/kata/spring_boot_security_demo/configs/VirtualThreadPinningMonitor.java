@@ -0,0 +1,125 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отслеживание закрепления виртуальных потоков за несущими (pinning) по событию JFR jdk.VirtualThreadPinned.
+ * Виртуальный поток, заблокировавшийся внутри synchronized или нативного вызова, занимает несущий поток
+ * на все время ожидания; при ожидании JDBC это ограничивает параллельность числом ядер.
+ * Каждое событие дольше порога учитывается таймером jvm.threads.virtual.pinned с тегом frame -
+ * первым кадром стека вне JDK (обычно вызов драйвера или библиотеки, который ждал под монитором).
+ * Полный стек пишется в лог один раз для каждого такого кадра, повторы - на уровне debug.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    // Логгер для отчетов о закреплении виртуальных потоков.
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final int stackDepth;
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    /**
+     * Конструктор.
+     * @param meterRegistry Реестр метрик.
+     * @param threshold Минимальная длительность закрепления, о которой сообщается.
+     * @param stackDepth Количество кадров стека в логе.
+     */
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold, int stackDepth) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.stackDepth = stackDepth;
+    }
+
+    /**
+     * Запускает поток событий JFR в фоновом потоке.
+     */
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        // События нужны только обработчику, буфер записи на диске не накапливается
+        stream.setMaxAge(Duration.ofMinutes(1));
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Отслеживание закрепления виртуальных потоков включено: порог {}", threshold);
+    }
+
+    /**
+     * Останавливает поток событий JFR.
+     */
+    @Override
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String frame = pinningFrame(frames);
+        Timer.builder("jvm.threads.virtual.pinned")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reportedFrames.add(frame)) {
+            logger.warn("Виртуальный поток закреплен за несущим на {} мс в {}:{}",
+                    event.getDuration().toMillis(), frame, format(frames));
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Виртуальный поток закреплен за несущим на {} мс в {}", event.getDuration().toMillis(), frame);
+        }
+    }
+
+    private static String pinningFrame(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && !isJdk(frame.getMethod().getType().getName())) {
+                return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            }
+        }
+        return "unknown";
+    }
+
+    private static boolean isJdk(String className) {
+        for (String prefix : JDK_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String format(List<RecordedFrame> frames) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < frames.size() && i < stackDepth; i++) {
+            RecordedFrame frame = frames.get(i);
+            builder.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber());
+        }
+        if (frames.size() > stackDepth) {
+            builder.append("\n\t... ").append(frames.size() - stackDepth).append(" more");
+        }
+        return builder.toString();
+    }
+}
@@ -2,16 +2,38 @@ package ru.kata.spring_boot_security_demo.configs;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import ru.kata.spring_boot_security_demo.service.AccessTokenService;
+import ru.kata.spring_boot_security_demo.service.PasswordUpgradeService;
 import ru.kata.spring_boot_security_demo.service.UserDetailsServiceImp;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static ru.kata.spring_boot_security_demo.configs.RoleMaskAuthorizationManager.hasAnyRole;
+import static ru.kata.spring_boot_security_demo.configs.RoleMaskAuthorizationManager.hasRole;
+
 /**
  * Класс конфигурации безопасности Spring Security.
  * Настраивает правила доступа, аутентификацию и шифрование паролей.
@@ -22,38 +44,64 @@ public class WebSecurityConfig  {
     // Логгер для отслеживания конфигурации безопасности.
     private static final Logger logger = LoggerFactory.getLogger(WebSecurityConfig.class);
     private final SuccessUserHandler successUserHandler;
+    private final FailureUserHandler failureUserHandler;
+    private final LoginThrottle loginThrottle;
     private final UserDetailsServiceImp userDetailsServiceImp;
 
     /**
      * Конструктор для инъекции зависимостей.
      *
      * @param successUserHandler    Обработчик успешной аутентификации.
+     * @param failureUserHandler    Обработчик неудачной аутентификации.
+     * @param loginThrottle         Ограничитель попыток логина.
      * @param userDetailsServiceImp Сервис для загрузки данных пользователя.
      */
     @Autowired
-    public WebSecurityConfig(SuccessUserHandler successUserHandler, UserDetailsServiceImp userDetailsServiceImp) {
+    public WebSecurityConfig(SuccessUserHandler successUserHandler, FailureUserHandler failureUserHandler,
+                             LoginThrottle loginThrottle, UserDetailsServiceImp userDetailsServiceImp) {
         logger.info("Инициализация WebSecurityConfig");
         this.successUserHandler = successUserHandler;
+        this.failureUserHandler = failureUserHandler;
+        this.loginThrottle = loginThrottle;
         this.userDetailsServiceImp = userDetailsServiceImp;
     }
     /**
      * Бин для цепочки фильтров безопасности.
      * Настраивает правила авторизации, отключение CSRF, форму логина и логаут.
+     * Проверки ролей выполняются по битовой маске principal (RoleMaskAuthorizationManager).
      *
      * @param http Объект HttpSecurity для настройки.
      * @return SecurityFilterChain Цепочка фильтров.
      * @throws Exception Если возникает ошибка конфигурации.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+                                                   ObjectProvider<AccessTokenService> accessTokenService) throws Exception {
         logger.info("Настройка SecurityFilterChain");
+        AccessTokenService tokenService = accessTokenService.getIfAvailable();
+        if (tokenService != null) {
+            // Stateless-режим: /api/** принимает Bearer-токены, без токена по-прежнему работает сессия
+            logger.info("Включена аутентификация API по токенам");
+            http
+                    .addFilterBefore(new AccessTokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+                    .exceptionHandling(exceptions -> exceptions.defaultAuthenticationEntryPointFor(
+                            new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                            request -> request.getRequestURI().startsWith("/api/")
+                                    && request.getHeader(HttpHeaders.AUTHORIZATION) != null));
+        }
         http
+                .addFilterBefore(new LoginThrottlingFilter(loginThrottle, "/process_login"), UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/admin/**").hasRole("ADMIN") // Объединенное правило для всех операций /api/admin/**
-                        .requestMatchers("/admin/**").hasRole("ADMIN") // Только админы могут обращаться к /admin/**
-                        .requestMatchers("/api/user/current").hasAnyRole("USER", "ADMIN") // Доступ для пользователей к текущему профилю
-                        .requestMatchers("/api/user").hasRole("USER") // Пользователи могут обращаться к /api/user
-                        .requestMatchers("/user").hasRole("USER") // Пользователи могут обращаться к /user
+                        .requestMatchers("/api/admin/**").access(hasRole("ADMIN")) // Объединенное правило для всех операций /api/admin/**
+                        .requestMatchers("/admin/**").access(hasRole("ADMIN")) // Только админы могут обращаться к /admin/**
+                        .requestMatchers("/api/user/current").access(hasAnyRole("USER", "ADMIN")) // Доступ для пользователей к текущему профилю
+                        .requestMatchers("/api/user").access(hasRole("USER")) // Пользователи могут обращаться к /api/user
+                        .requestMatchers("/api/reactive/users/**").access(hasRole("ADMIN")) // Неблокирующее чтение пользователей - как /api/admin
+                        .requestMatchers("/api/reactive/user/current").access(hasAnyRole("USER", "ADMIN")) // Неблокирующее чтение текущего профиля
+                        .requestMatchers("/user").access(hasRole("USER")) // Пользователи могут обращаться к /user
+                        .requestMatchers(HttpMethod.POST, "/api/auth/token").permitAll() // Выпуск токена доступа
+                        .requestMatchers("/actuator/health").permitAll() // Проверка состояния доступна балансировщику
+                        .requestMatchers("/actuator/**").access(hasRole("ADMIN")) // Метрики только для админов
                         .requestMatchers("/login", "/js/**", "/css/**").permitAll() // Разрешить доступ к статическим ресурсам и логину
                         .anyRequest().authenticated() // Все остальные запросы требуют аутентификации
 
@@ -62,7 +110,7 @@ public class WebSecurityConfig  {
                 .formLogin(form -> form
                         .loginPage("/login") // Страница логина
                         .loginProcessingUrl("/process_login") // URL для обработки логина
-                        .failureUrl("/login?error") // URL при ошибке логина
+                        .failureHandler(failureUserHandler) // Обработчик ошибки логина (/login?error или 503 при перегрузке)
                         .successHandler(successUserHandler) // Обработчик успешного логина
                         .permitAll() // Доступ к форме логина для всех
                 )
@@ -71,19 +119,54 @@ public class WebSecurityConfig  {
                         .logoutSuccessUrl("/login") // URL после успешного выхода
                         .permitAll() // Доступ к логауту для всех
                 )
-                .userDetailsService(userDetailsServiceImp); // Сервис для загрузки данных пользователя
+                .authenticationManager(authenticationManager); // Менеджер с провайдером, перехэширующим пароли
 
         return http.build();
     }
 
+    /**
+     * Бин менеджера аутентификации для формы логина и выпуска токенов.
+     * Загружает пользователя через UserDetailsServiceImp и перехэширует устаревшие пароли после входа.
+     * @param passwordEncoder Шифровщик паролей.
+     * @param passwordUpgradeService Сервис фонового перехэширования.
+     * @param eventPublisher Публикатор событий аутентификации.
+     * @return Менеджер аутентификации.
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder,
+                                                       PasswordUpgradeService passwordUpgradeService,
+                                                       AuthenticationEventPublisher eventPublisher) {
+        UpgradingAuthenticationProvider provider = new UpgradingAuthenticationProvider(passwordEncoder, passwordUpgradeService);
+        provider.setUserDetailsService(userDetailsServiceImp);
+        ProviderManager providerManager = new ProviderManager(provider);
+        providerManager.setAuthenticationEventPublisher(eventPublisher);
+        return providerManager;
+    }
+
     /**
      * Бин для шифровщика паролей.
-     * Использует BCrypt для безопасного хэширования.
+     * Хэши сохраняются с префиксом алгоритма ({bcrypt}), cost BCrypt задается настройкой
+     * app.security.bcrypt.strength. Старые хэши без префикса и с любым cost продолжают проверяться,
+     * а upgradeEncoding сообщает, что их нужно перехэшировать.
+     * Вычисления выполняются в отдельном ограниченном пуле потоков.
+     * @param strength Cost BCrypt для новых хэшей.
+     * @param passwordHashingExecutor Пул потоков для хэширования.
+     * @param timeout Максимальное время ожидания результата хэширования.
+     * @param retryAfterSeconds Значение Retry-After при перегрузке пула.
+     * @param meterRegistry Реестр метрик.
      * @return PasswordEncoder Шифровщик паролей.
      */
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        logger.info("Создание PasswordEncoder");
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                              @Qualifier("passwordHashingExecutor") ThreadPoolExecutor passwordHashingExecutor,
+                                              @Value("${app.security.hashing.timeout:5s}") Duration timeout,
+                                              @Value("${app.security.hashing.retry-after:1}") long retryAfterSeconds,
+                                              MeterRegistry meterRegistry) {
+        logger.info("Создание PasswordEncoder с BCrypt cost {}", strength);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new PooledPasswordEncoder(delegating, passwordHashingExecutor, timeout,
+                retryAfterSeconds, meterRegistry);
     }
 }
@@ -17,6 +17,7 @@ import ru.kata.spring_boot_security_demo.models.User;
 import ru.kata.spring_boot_security_demo.service.RoleService;
 import ru.kata.spring_boot_security_demo.service.UserService;
 import ru.kata.spring_boot_security_demo.util.PersonValidator;
+import ru.kata.spring_boot_security_demo.util.UserNotCreatedException;
 
 import java.util.List;
 
@@ -59,7 +60,6 @@ public class AdminController {
     public String showAllUsers(@AuthenticationPrincipal User user, Model model) {
         logger.info("Запрос списка пользователей от пользователя: {}", user.getEmail());
         model.addAttribute("user", user);
-        model.addAttribute("users", userService.getAllUsers());
         model.addAttribute("person", new User());
         List<Role> roles = roleService.findAll();
         model.addAttribute("allRoles", roles);
@@ -79,7 +79,13 @@ public class AdminController {
             logger.warn("Ошибки валидации при добавлении пользователя: {}", bindingResult.getAllErrors());
             return "users";
         }
-        userService.addNewUser(user);
+        try {
+            userService.addNewUser(user);
+        } catch (UserNotCreatedException e) {
+            // Email заняли между проверкой PersonValidator и вставкой
+            bindingResult.rejectValue("email", "Invalid email address", "Email уже занят");
+            return "users";
+        }
         logger.info("Пользователь успешно добавлен: {}", user.getEmail());
         return "redirect:/admin/users";
     }
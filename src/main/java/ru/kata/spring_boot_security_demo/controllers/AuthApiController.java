@@ -0,0 +1,95 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kata.spring_boot_security_demo.configs.LoginThrottle;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.service.AccessTokenService;
+import ru.kata.spring_boot_security_demo.util.PasswordHashingRejectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * REST-контроллер выпуска токенов доступа для stateless-режима API.
+ * Доступен только при app.security.token.enabled=true.
+ * Попытки ограничиваются тем же LoginThrottle, что и форма логина: иначе эндпоинт позволял бы
+ * перебирать пароли в обход ограничения /process_login.
+ */
+@RestController
+@RequestMapping("/api/auth")
+@ConditionalOnProperty(name = "app.security.token.enabled", havingValue = "true")
+public class AuthApiController {
+
+    // Логгер для отслеживания операций в контроллере.
+    private static final Logger logger = LoggerFactory.getLogger(AuthApiController.class);
+
+    private final AuthenticationManager authenticationManager;
+    private final AccessTokenService accessTokenService;
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param authenticationManager Менеджер аутентификации.
+     * @param accessTokenService Сервис токенов доступа.
+     * @param loginThrottle Ограничитель попыток логина.
+     */
+    @Autowired
+    public AuthApiController(AuthenticationManager authenticationManager, AccessTokenService accessTokenService,
+                             LoginThrottle loginThrottle) {
+        logger.info("Инициализация AuthApiController");
+        this.authenticationManager = authenticationManager;
+        this.accessTokenService = accessTokenService;
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Проверяет email и пароль и выпускает подписанный токен доступа.
+     * @param credentials Объект с полями email и password.
+     * @param request HTTP-запрос (IP клиента для ограничения попыток).
+     * @return Токен, его тип и время жизни в секундах (401 при неверных данных, 429 при превышении лимита попыток).
+     */
+    @PostMapping("/token")
+    public ResponseEntity<?> issueToken(@RequestBody Map<String, String> credentials, HttpServletRequest request) {
+        String email = credentials.get("email");
+        logger.info("Запрос токена для пользователя: {}", email);
+        long retryAfter = loginThrottle.tryAcquire(request.getRemoteAddr(), email);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(LoginThrottle.rejectionMessage(retryAfter));
+        }
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(email, credentials.get("password")));
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
+        } catch (AuthenticationException e) {
+            logger.warn("Не удалось выпустить токен для {}: {}", email, e.getMessage());
+            loginThrottle.recordFailure(request.getRemoteAddr(), email);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String token = accessTokenService.issue((User) authentication.getPrincipal());
+        return ResponseEntity.ok(Map.of(
+                "access_token", token,
+                "token_type", "Bearer",
+                "expires_in", accessTokenService.getTtlSeconds()));
+    }
+}
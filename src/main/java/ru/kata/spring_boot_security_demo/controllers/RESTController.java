@@ -3,22 +3,32 @@ package ru.kata.spring_boot_security_demo.controllers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 
 import jakarta.validation.Valid;
-import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserEditRequest;
+import ru.kata.spring_boot_security_demo.dto.UserFilter;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+import ru.kata.spring_boot_security_demo.dto.UserSlice;
+import ru.kata.spring_boot_security_demo.dto.VersionedUser;
 import ru.kata.spring_boot_security_demo.models.User;
 import ru.kata.spring_boot_security_demo.service.RoleService;
 import ru.kata.spring_boot_security_demo.service.UserService;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
 import ru.kata.spring_boot_security_demo.util.UserNotCreatedException;
+import ru.kata.spring_boot_security_demo.util.UserVersionConflictException;
 
-import java.util.*;
+import java.util.List;
 
 /**
  * REST-контроллер для админских операций с пользователями.
@@ -47,27 +57,87 @@ public class RESTController {
     }
 
     /**
-     * Возвращает список всех пользователей.
-     * @return Список пользователей в формате JSON.
+     * Возвращает страницу пользователей, упорядоченных по ID.
+     * ETag страницы - глобальная версия таблицы пользователей: пока записей не было, повторный запрос
+     * с If-None-Match получает 304 после чтения одной строки версии, без чтения пользователей.
+     * Версия и страница читаются в одной транзакции, то есть с одной реплики (или с основной базы).
+     * @param cursor Курсор nextCursor из предыдущей страницы (для первой страницы не передается).
+     * @param size Размер страницы.
+     * @param webRequest Текущий запрос (для проверки условных заголовков).
+     * @return Страница пользователей и курсор следующей страницы в формате JSON или 304.
      */
     @GetMapping()
-    public List<User> getUsers() {
-        logger.info("Запрос списка всех пользователей");
-        return userService.getAllUsers();
+    @Transactional(readOnly = true)
+    public ResponseEntity<UserPage> getUsers(@RequestParam(name = "cursor", required = false) String cursor,
+                                             @RequestParam(name = "size", required = false) Integer size,
+                                             WebRequest webRequest) {
+        logger.info("Запрос страницы пользователей");
+        // Версия читается до данных в той же транзакции, поэтому ETag не может опередить содержимое ответа
+        String version = userService.getUsersVersion();
+        if (webRequest.checkNotModified(version)) {
+            logger.debug("Список пользователей не изменился (версия {})", version);
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(version)
+                .body(userService.getUsersPage(cursor, size));
+    }
+
+    /**
+     * Возвращает пользователей, отфильтрованных по возрасту, роли, началу фамилии и домену email.
+     * @param filter Условия фильтрации (minAge, maxAge, roleId, lastnamePrefix, emailDomain).
+     * @param sort Сортировка вида "lastname" или "age,desc".
+     * @param page Номер страницы с 0.
+     * @param size Размер страницы.
+     * @return Страница пользователей в формате JSON.
+     */
+    @GetMapping("/filter")
+    public UserSlice filterUsers(@ModelAttribute UserFilter filter,
+                                 @RequestParam(name = "sort", required = false) String sort,
+                                 @RequestParam(name = "page", required = false) Integer page,
+                                 @RequestParam(name = "size", required = false) Integer size) {
+        logger.info("Фильтрация пользователей: {}", filter);
+        return userService.filterUsers(filter, sort, page, size);
     }
 
     /**
-     * Возвращает пользователя по ID.
+     * Ищет пользователей по префиксу или подстроке email, имени и фамилии.
+     * @param query Запрос: слова через пробел должны совпасть все; 1-2 символа ищутся как начало поля.
+     * @param limit Максимальное количество результатов.
+     * @return Найденные пользователи в формате JSON.
+     */
+    @GetMapping("/search")
+    public List<UserDto> searchUsers(@RequestParam(name = "q") String query,
+                                     @RequestParam(name = "limit", required = false) Integer limit) {
+        logger.info("Поиск пользователей: {}", query);
+        return userService.search(query, limit);
+    }
+
+    /**
+     * Возвращает пользователя по ID с заголовком ETag (версия строки пользователя).
+     * Если клиент прислал If-None-Match с текущей версией, отвечает 304 без чтения и сериализации данных.
      * @param id Идентификатор пользователя.
-     * @return Пользователь в формате JSON.
+     * @param ifNoneMatch Заголовок If-None-Match.
+     * @param webRequest Текущий запрос (для проверки условных заголовков).
+     * @return Пользователь в формате JSON (без пароля) или 304.
      */
     @GetMapping("/{id}")
-    @Transactional(readOnly = true)
-    public User getUser(@PathVariable("id") Long id) {
+    public ResponseEntity<UserDto> getUser(@PathVariable("id") Long id,
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           WebRequest webRequest) {
         logger.info("Запрос пользователя с ID: {}", id);
-        User user = userService.getUserWithRoles(id);
-        logger.debug("Возвращен пользователь: {}", user.getEmail());
-        return user;
+        if (ifNoneMatch != null && webRequest.checkNotModified(String.valueOf(userService.getUserVersion(id)))) {
+            logger.debug("Пользователь с ID {} не изменился", id);
+            return null;
+        }
+        VersionedUser versioned = userService.getVersionedUser(id);
+        logger.debug("Возвращен пользователь: {}", versioned.user().email());
+        // no-cache: браузер хранит ответ, но перед использованием перепроверяет его по ETag
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(String.valueOf(versioned.version()))
+                .body(versioned.user());
     }
 
     /**
@@ -93,50 +163,51 @@ public class RESTController {
 
     /**
      * Обновляет данные пользователя.
-     * @param payload Данные пользователя из запроса.
-     * @return Статус ответа (OK при успехе, BAD_REQUEST при ошибке).
+     * С заголовком If-Match обновление выполняется, только если версия пользователя совпадает с ETag,
+     * иначе - 412 Precondition Failed. Без заголовка изменение применяется поверх текущей версии.
+     * @param request Данные пользователя из запроса.
+     * @param bindingResult Результаты валидации.
+     * @param ifMatch Заголовок If-Match.
+     * @return Статус ответа (OK при успехе) с ETag новой версии.
+     * @throws UserBadRequestException Если есть ошибки валидации.
+     * @throws UserVersionConflictException Если версия не совпала с If-Match.
      */
     @PutMapping
-    @Transactional
-    public ResponseEntity<HttpStatus> editUser(@RequestBody Map<String, Object> payload) {
-        logger.info("Попытка обновления пользователя с ID: {}", payload.get("id"));
-        try {
-            Long id = Long.valueOf(payload.get("id").toString());
-            User existingUser = userService.getUser(id);
-
-            // Обновляем основные поля
-            existingUser.setName((String) payload.get("name"));
-            existingUser.setLastname((String) payload.get("lastname"));
-            existingUser.setAge(Math.toIntExact(Long.valueOf(payload.get("age").toString())));
-            existingUser.setEmail((String) payload.get("email"));
-
-            // Обновляем пароль, если он изменился
-            if (payload.containsKey("password")) {
-                existingUser.setPassword((String) payload.get("password"));
-                logger.debug("Пароль пользователя обновлен");
-            }
+    public ResponseEntity<HttpStatus> editUser(@RequestBody @Valid UserEditRequest request, BindingResult bindingResult,
+                                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Попытка обновления пользователя с ID: {}", request.id());
+        if (bindingResult.hasErrors()) {
+            StringBuilder errors = new StringBuilder();
+            bindingResult.getAllErrors().forEach(error -> errors.append(error.getDefaultMessage()).append(" "));
+            logger.warn("Ошибки валидации при обновлении пользователя: {}", errors);
+            throw new UserBadRequestException(errors.toString().trim());
+        }
+        long version = userService.update(request, expectedVersion(request.id(), ifMatch));
+        logger.info("Пользователь успешно обновлен: {}", request.email());
+        return ResponseEntity.ok().eTag(String.valueOf(version)).body(HttpStatus.OK);
+    }
 
-            // Обновляем роли
-            List<Map<String, Object>> roles = (List<Map<String, Object>>) payload.get("role");
-            Set<Role> newRoles = new HashSet<>();
-            for (Map<String, Object> roleMap : roles) {
-                Long roleId = Long.valueOf(roleMap.get("id").toString());
-                Optional<Role> roleOptional = roleService.findById(roleId);
-                if (roleOptional.isPresent()) {
-                    newRoles.add(roleOptional.get());
-                } else {
-                    logger.error("Роль с ID {} не найдена", roleId);
-                    throw new RuntimeException("Role not found with id: " + roleId);
-                }
+    /**
+     * Извлекает ожидаемую версию из If-Match. "*" означает любую версию существующего пользователя.
+     * Слабые и неизвестные ETag не совпадают ни с одной версией (RFC 9110, 13.1.1).
+     */
+    private Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            userService.getUserVersion(id);
+            return null;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                logger.debug("Нечисловой ETag в If-Match: {}", tag);
             }
-            existingUser.setRole(newRoles);
-            userService.edit(existingUser);
-            logger.info("Пользователь успешно обновлен: {}", existingUser.getEmail());
-            return ResponseEntity.ok(HttpStatus.OK);
-        } catch (Exception e) {
-            logger.error("Ошибка при обновлении пользователя: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        throw new UserVersionConflictException(userService.getUserVersion(id));
     }
 
     /**
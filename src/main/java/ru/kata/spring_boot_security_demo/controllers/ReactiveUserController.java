@@ -0,0 +1,78 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.service.ReactiveUserService;
+
+/**
+ * REST-контроллер неблокирующего чтения пользователей.
+ * Обработчики возвращают Mono: поток Tomcat освобождается на время запроса к базе (асинхронная
+ * обработка Servlet), поэтому сотни одновременных запросов панели не занимают сотни потоков.
+ * Правила доступа те же, что у блокирующих эндпоинтов: список и пользователь по ID - для ADMIN,
+ * текущий пользователь - для USER и ADMIN; работают и сессия, и Bearer-токен.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveUserController {
+
+    // Логгер для отслеживания операций в контроллере.
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserController.class);
+
+    private final ReactiveUserService reactiveUserService;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param reactiveUserService Сервис неблокирующего чтения пользователей.
+     */
+    @Autowired
+    public ReactiveUserController(ReactiveUserService reactiveUserService) {
+        logger.info("Инициализация ReactiveUserController");
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    /**
+     * Возвращает страницу пользователей, упорядоченных по ID.
+     * @param cursor Курсор из предыдущей страницы (nextCursor) или null для первой страницы.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с курсором на следующую.
+     */
+    @GetMapping("/users")
+    public Mono<UserPage> getUsers(@RequestParam(name = "cursor", required = false) String cursor,
+                                   @RequestParam(name = "size", required = false) Integer size) {
+        logger.info("Неблокирующий запрос страницы пользователей");
+        return reactiveUserService.getUsersPage(cursor, size);
+    }
+
+    /**
+     * Возвращает пользователя по ID.
+     * @param id Идентификатор пользователя.
+     * @return Пользователь с ролями.
+     */
+    @GetMapping("/users/{id}")
+    public Mono<UserDto> getUser(@PathVariable("id") long id) {
+        logger.info("Неблокирующий запрос пользователя с ID: {}", id);
+        return reactiveUserService.getUserDto(id);
+    }
+
+    /**
+     * Возвращает данные текущего пользователя с ролями.
+     * @param user Текущий аутентифицированный пользователь.
+     * @return Пользователь с ролями.
+     */
+    @GetMapping("/user/current")
+    public Mono<UserDto> getCurrentUser(@AuthenticationPrincipal User user) {
+        logger.info("Неблокирующий запрос данных текущего пользователя: {}", user.getEmail());
+        return reactiveUserService.getUserDto(user.getId());
+    }
+}
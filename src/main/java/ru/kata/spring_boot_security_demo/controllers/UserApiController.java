@@ -5,10 +5,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
 import ru.kata.spring_boot_security_demo.models.User;
 import ru.kata.spring_boot_security_demo.service.UserService;
 
@@ -42,11 +42,10 @@ public class UserApiController {
      * @return Ответ с данными пользователя.
      */
     @GetMapping("/current")
-    @Transactional(readOnly = true)
-    public ResponseEntity<User> getCurrentUser(@AuthenticationPrincipal User user) {
+    public ResponseEntity<UserDto> getCurrentUser(@AuthenticationPrincipal User user) {
         logger.info("Запрос данных текущего пользователя: {}", user.getEmail());
-        User fullUser = userService.getUserWithRoles(user.getId());
-        logger.debug("Возвращен пользователь: {}", fullUser.getEmail());
+        UserDto fullUser = userService.getUserDto(user.getId());
+        logger.debug("Возвращен пользователь: {}", fullUser.email());
         return ResponseEntity.ok(fullUser);
     }
 }
\ No newline at end of file
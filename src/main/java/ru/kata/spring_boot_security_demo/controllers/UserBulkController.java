@@ -0,0 +1,72 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kata.spring_boot_security_demo.dto.BulkOperationResult;
+import ru.kata.spring_boot_security_demo.dto.UserSelector;
+import ru.kata.spring_boot_security_demo.service.UserService;
+
+/**
+ * REST-контроллер массовых операций над пользователями.
+ * Тело запроса выбирает пользователей: {"ids": [...]} или {"emailDomain": "tenant.example"}.
+ */
+@RestController
+@RequestMapping("/api/admin/bulk")
+public class UserBulkController {
+
+    // Логгер для отслеживания операций в контроллере.
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkController.class);
+
+    private final UserService userService;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userService Сервис для работы с пользователями.
+     */
+    @Autowired
+    public UserBulkController(UserService userService) {
+        logger.info("Инициализация UserBulkController");
+        this.userService = userService;
+    }
+
+    /**
+     * Удаляет выбранных пользователей.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных пользователей и связей с ролями.
+     */
+    @PostMapping("/delete")
+    public BulkOperationResult deleteUsers(@RequestBody UserSelector selector) {
+        logger.info("Запрос массового удаления пользователей");
+        return userService.deleteUsers(selector);
+    }
+
+    /**
+     * Назначает роль выбранным пользователям.
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество добавленных связей с ролью.
+     */
+    @PostMapping("/roles/{roleId}/assign")
+    public BulkOperationResult assignRole(@PathVariable("roleId") Long roleId, @RequestBody UserSelector selector) {
+        logger.info("Запрос массового назначения роли {}", roleId);
+        return userService.assignRole(roleId, selector);
+    }
+
+    /**
+     * Отзывает роль у выбранных пользователей.
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных связей с ролью.
+     */
+    @PostMapping("/roles/{roleId}/revoke")
+    public BulkOperationResult revokeRole(@PathVariable("roleId") Long roleId, @RequestBody UserSelector selector) {
+        logger.info("Запрос массового отзыва роли {}", roleId);
+        return userService.revokeRole(roleId, selector);
+    }
+}
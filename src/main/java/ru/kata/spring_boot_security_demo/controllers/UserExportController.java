@@ -0,0 +1,69 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.service.UserExportService;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+
+import java.util.Locale;
+
+/**
+ * REST-контроллер выгрузки пользователей.
+ * Ответ пишется потоково, без сборки полного списка пользователей в памяти.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class UserExportController {
+
+    // Логгер для отслеживания операций в контроллере.
+    private static final Logger logger = LoggerFactory.getLogger(UserExportController.class);
+
+    private final UserExportService userExportService;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userExportService Сервис выгрузки пользователей.
+     */
+    @Autowired
+    public UserExportController(UserExportService userExportService) {
+        logger.info("Инициализация UserExportController");
+        this.userExportService = userExportService;
+    }
+
+    /**
+     * Выгружает всех пользователей.
+     * @param format Формат выгрузки: ndjson (по умолчанию) или csv.
+     * @return Потоковый ответ с файлом выгрузки.
+     * @throws UserBadRequestException Если формат не поддерживается.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        UserFileFormat exportFormat;
+        try {
+            exportFormat = UserFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UserBadRequestException("Unsupported export format: " + format);
+        }
+        logger.info("Запрос выгрузки пользователей в формате {}", exportFormat);
+        StreamingResponseBody body = out -> userExportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
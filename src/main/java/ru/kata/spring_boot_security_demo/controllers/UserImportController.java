@@ -0,0 +1,59 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.dto.UserImportReport;
+import ru.kata.spring_boot_security_demo.service.UserImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST-контроллер массового импорта пользователей.
+ * Тело запроса (CSV с заголовком или NDJSON) читается потоково.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class UserImportController {
+
+    // Логгер для отслеживания операций в контроллере.
+    private static final Logger logger = LoggerFactory.getLogger(UserImportController.class);
+
+    private final UserImportService userImportService;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userImportService Сервис импорта пользователей.
+     */
+    @Autowired
+    public UserImportController(UserImportService userImportService) {
+        logger.info("Инициализация UserImportController");
+        this.userImportService = userImportService;
+    }
+
+    /**
+     * Импортирует пользователей.
+     * CSV: колонки name, lastname, age, email, password, roles (роли через пробел или |).
+     * NDJSON: по одному объекту {"name", "lastname", "age", "email", "password", "roles": [...]} на строку.
+     * @param contentType Тип содержимого запроса (text/csv или application/x-ndjson).
+     * @param body Тело запроса.
+     * @return Отчет с количеством созданных пользователей, ошибками по строкам и пропускной способностью.
+     * @throws IOException Если возникает ошибка чтения.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public UserImportReport importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                        InputStream body) throws IOException {
+        UserFileFormat format = MediaType.parseMediaType(contentType).getSubtype().equals("csv")
+                ? UserFileFormat.CSV : UserFileFormat.NDJSON;
+        logger.info("Запрос импорта пользователей в формате {}", format);
+        return userImportService.importUsers(format, body);
+    }
+}
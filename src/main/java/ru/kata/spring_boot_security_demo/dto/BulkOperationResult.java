@@ -0,0 +1,9 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Результат массовой операции.
+ * @param users Количество затронутых строк users.
+ * @param roleLinks Количество затронутых строк users_roles.
+ */
+public record BulkOperationResult(long users, long roleLinks) {
+}
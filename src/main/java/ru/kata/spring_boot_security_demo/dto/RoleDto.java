@@ -0,0 +1,9 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Роль в ответах API.
+ * @param id Идентификатор роли.
+ * @param roleName Имя роли.
+ */
+public record RoleDto(Long id, String roleName) {
+}
@@ -0,0 +1,31 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Пользователь в ответах API: только отображаемые поля, без пароля и служебных свойств UserDetails.
+ * @param id Идентификатор пользователя.
+ * @param name Имя.
+ * @param lastname Фамилия.
+ * @param age Возраст.
+ * @param email Email.
+ * @param role Роли пользователя.
+ */
+public record UserDto(Long id, String name, String lastname, int age, String email, List<RoleDto> role) {
+
+    /**
+     * Конструктор для JPQL-выражения SELECT NEW: роли дочитываются отдельным запросом.
+     */
+    public UserDto(Long id, String name, String lastname, int age, String email) {
+        this(id, name, lastname, age, email, List.of());
+    }
+
+    /**
+     * Возвращает копию с указанными ролями.
+     * @param roles Роли пользователя.
+     * @return Новый объект.
+     */
+    public UserDto withRoles(List<RoleDto> roles) {
+        return new UserDto(id, name, lastname, age, email, roles);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Данные для редактирования пользователя через REST API.
+ * @param id Идентификатор пользователя.
+ * @param name Имя.
+ * @param lastname Фамилия.
+ * @param age Возраст.
+ * @param email Email.
+ * @param password Новый пароль (пустой - не менять).
+ * @param role Новые роли (null - не менять); используется только ID роли.
+ */
+public record UserEditRequest(
+        @NotNull(message = "ID не должен быть пустым") Long id,
+        @NotEmpty(message = "Имя не должно быть пустым")
+        @Size(min = 2, max = 30, message = "Имя должно быть от 2 до 30 символов") String name,
+        String lastname,
+        @NotNull(message = "Возраст не должен быть пустым")
+        @Min(value = 0, message = "Возраст должен быть больше 0") Integer age,
+        @Email @NotEmpty(message = "Email не должен быть пустым") String email,
+        String password,
+        List<RoleDto> role) {
+}
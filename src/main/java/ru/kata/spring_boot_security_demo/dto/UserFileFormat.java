@@ -0,0 +1,25 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Формат файла выгрузки и импорта пользователей.
+ */
+public enum UserFileFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    UserFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Условия фильтрации пользователей; незаданные (null) условия не применяются.
+ * @param minAge Минимальный возраст включительно.
+ * @param maxAge Максимальный возраст включительно.
+ * @param roleId Идентификатор роли, которая должна быть у пользователя.
+ * @param lastnamePrefix Начало фамилии.
+ * @param emailDomain Домен email (с "@" или без).
+ */
+public record UserFilter(Integer minAge, Integer maxAge, Long roleId, String lastnamePrefix, String emailDomain) {
+}
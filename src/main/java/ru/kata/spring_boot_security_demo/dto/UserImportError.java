@@ -0,0 +1,10 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Ошибка импорта отдельной строки.
+ * @param line Номер строки во входных данных.
+ * @param email Email из строки, если удалось прочитать.
+ * @param message Описание ошибки.
+ */
+public record UserImportError(long line, String email, String message) {
+}
@@ -0,0 +1,17 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Итог массового импорта пользователей.
+ * @param total Прочитано строк с данными.
+ * @param imported Создано пользователей.
+ * @param failed Отклонено строк.
+ * @param elapsedMillis Длительность импорта, мс.
+ * @param rowsPerSecond Пропускная способность, строк в секунду.
+ * @param errors Ошибки по строкам (не больше app.users.import.max-errors).
+ * @param errorsTruncated true, если ошибок больше, чем вошло в отчет.
+ */
+public record UserImportReport(long total, long imported, long failed, long elapsedMillis, double rowsPerSecond,
+                               List<UserImportError> errors, boolean errorsTruncated) {
+}
@@ -0,0 +1,16 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Строка массового импорта пользователей.
+ * @param name Имя.
+ * @param lastname Фамилия.
+ * @param age Возраст.
+ * @param email Email.
+ * @param password Пароль в открытом виде.
+ * @param roles Имена ролей (ROLE_USER/USER, ROLE_ADMIN/ADMIN); пусто - ROLE_USER.
+ */
+public record UserImportRow(String name, String lastname, Integer age, String email, String password,
+                            List<String> roles) {
+}
@@ -0,0 +1,11 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Страница пользователей с курсором на следующую страницу.
+ * @param items Пользователи страницы, упорядоченные по ID.
+ * @param nextCursor Непрозрачный курсор следующей страницы или null, если страница последняя.
+ */
+public record UserPage(List<UserDto> items, String nextCursor) {
+}
@@ -0,0 +1,16 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Строка соединения пользователя с одной из его ролей (пользователь без ролей дает одну строку с пустой ролью).
+ * @param id Идентификатор пользователя.
+ * @param name Имя.
+ * @param lastname Фамилия.
+ * @param age Возраст.
+ * @param email Email.
+ * @param version Версия строки пользователя.
+ * @param roleId Идентификатор роли или null.
+ * @param roleName Имя роли или null.
+ */
+public record UserRoleJoinRow(Long id, String name, String lastname, int age, String email, long version,
+                              Long roleId, String roleName) {
+}
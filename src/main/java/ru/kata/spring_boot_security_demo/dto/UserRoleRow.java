@@ -0,0 +1,10 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Строка связи пользователь-роль, читаемая одним запросом для страницы пользователей.
+ * @param userId Идентификатор пользователя.
+ * @param roleId Идентификатор роли.
+ * @param roleName Имя роли.
+ */
+public record UserRoleRow(Long userId, Long roleId, String roleName) {
+}
@@ -0,0 +1,11 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Выбор пользователей для массовой операции: либо список ID, либо домен email.
+ * @param ids Идентификаторы пользователей.
+ * @param emailDomain Домен email (часть после @), например tenant.example.
+ */
+public record UserSelector(List<Long> ids, String emailDomain) {
+}
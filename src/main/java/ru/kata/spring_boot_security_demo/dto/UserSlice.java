@@ -0,0 +1,13 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+import java.util.List;
+
+/**
+ * Страница отфильтрованных пользователей без подсчета общего количества.
+ * @param items Пользователи страницы.
+ * @param page Номер страницы (с 0).
+ * @param size Размер страницы.
+ * @param hasNext Есть ли следующая страница.
+ */
+public record UserSlice(List<UserDto> items, int page, int size, boolean hasNext) {
+}
@@ -0,0 +1,9 @@
+package ru.kata.spring_boot_security_demo.dto;
+
+/**
+ * Пользователь вместе с версией строки, прочитанной тем же запросом (для заголовка ETag).
+ * @param user Проекция пользователя.
+ * @param version Версия строки пользователя.
+ */
+public record VersionedUser(UserDto user, long version) {
+}
@@ -1,5 +1,7 @@
 package ru.kata.spring_boot_security_demo.models;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
@@ -13,6 +15,8 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,6 +26,9 @@ public class Role implements GrantedAuthority {
     // Логгер для отслеживания операций с ролями.
     private static final Logger logger = LoggerFactory.getLogger(Role.class);
 
+    // Регион кэша второго уровня (используется, только если кэш включен).
+    public static final String CACHE_REGION = "role";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,7 +48,6 @@ public class Role implements GrantedAuthority {
      */
     @Override
     public String getAuthority() {
-        logger.debug("Получение authority для роли: {}", roleName);
         return roleName;
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package ru.kata.spring_boot_security_demo.models;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Реестр интернированных authority: для каждого имени роли существует один общий
+ * неизменяемый объект, который разделяют все пользователи.
+ * Каждой известной роли также назначается бит, чтобы набор ролей principal
+ * можно было хранить и проверять как одну битовую маску long (не более 64 ролей).
+ * Ролям сверх 64 бит не назначается: проверки по маске для них не срабатывают, и вызывающий код
+ * (RoleMaskAuthorizationManager) проверяет их по имени authority.
+ */
+public final class RoleAuthorities {
+
+    // Логгер для отслеживания ролей без бита в маске.
+    private static final Logger logger = LoggerFactory.getLogger(RoleAuthorities.class);
+
+    private static final ConcurrentMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Long> BITS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_BIT = new AtomicInteger();
+
+    public static final GrantedAuthority ROLE_USER = of("ROLE_USER");
+    public static final GrantedAuthority ROLE_ADMIN = of("ROLE_ADMIN");
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Возвращает общий объект authority для имени роли.
+     * @param roleName Имя роли.
+     * @return Интернированный GrantedAuthority.
+     */
+    public static GrantedAuthority of(String roleName) {
+        return AUTHORITIES.computeIfAbsent(roleName, name -> {
+            BITS.computeIfAbsent(name, RoleAuthorities::nextBit);
+            return new SimpleGrantedAuthority(name);
+        });
+    }
+
+    /**
+     * Возвращает бит роли.
+     * @param roleName Имя роли.
+     * @return Бит роли или 0, если роль неизвестна или битов не хватило.
+     */
+    public static long bitOf(String roleName) {
+        Long bit = BITS.get(roleName);
+        return bit != null ? bit : 0L;
+    }
+
+    /**
+     * Строит битовую маску для набора ролей.
+     * @param roles Роли пользователя.
+     * @return Битовая маска ролей.
+     */
+    public static long maskOf(Collection<Role> roles) {
+        long mask = 0L;
+        if (roles != null) {
+            for (Role role : roles) {
+                of(role.getRoleName());
+                mask |= bitOf(role.getRoleName());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Строит битовую маску по именам ролей, регистрируя неизвестные роли.
+     * @param roleNames Имена ролей (с префиксом ROLE_).
+     * @return Битовая маска ролей.
+     */
+    public static long maskOf(String... roleNames) {
+        long mask = 0L;
+        for (String roleName : roleNames) {
+            of(roleName);
+            mask |= bitOf(roleName);
+        }
+        return mask;
+    }
+
+    private static Long nextBit(String roleName) {
+        int index = NEXT_BIT.getAndIncrement();
+        if (index >= Long.SIZE) {
+            logger.warn("Роли {} не хватило бита маски (больше {} ролей): проверяется по имени authority",
+                    roleName, Long.SIZE);
+            return 0L;
+        }
+        return 1L << index;
+    }
+
+    /**
+     * Строит неизменяемый список authority для набора ролей.
+     * @param roles Роли пользователя.
+     * @return Неизменяемый список интернированных authority.
+     */
+    public static List<GrantedAuthority> forRoles(Collection<Role> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return List.of();
+        }
+        GrantedAuthority[] authorities = new GrantedAuthority[roles.size()];
+        int i = 0;
+        for (Role role : roles) {
+            authorities[i++] = of(role.getRoleName());
+        }
+        return List.of(authorities);
+    }
+}
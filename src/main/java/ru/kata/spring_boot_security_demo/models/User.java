@@ -1,10 +1,13 @@
 package ru.kata.spring_boot_security_demo.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.persistence.*;
@@ -14,26 +17,36 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Модель пользователя.
  * Реализует UserDetails для интеграции с Spring Security.
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Индексы под фильтры UserFilterRepository; id в конце задает порядок внутри равных значений
+        @Index(name = "idx_users_age", columnList = "age, id"),
+        @Index(name = "idx_users_last_name", columnList = "last_name, id"),
+        @Index(name = "idx_users_email_domain", columnList = "email_domain, id")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
-@ToString(exclude = "password")
+@ToString(exclude = {"password", "roleSnapshot"})
 public class User implements UserDetails {
 
     // Логгер для отслеживания операций с пользователем.
     private static final Logger logger = LoggerFactory.getLogger(User.class);
 
+    // Регион кэша второго уровня для коллекции ролей (используется, только если кэш включен).
+    public static final String ROLES_CACHE_REGION = "user.roles";
+
+    // Пул идентификаторов из последовательности (по 50 за обращение) не мешает JDBC-батчингу вставок,
+    // в отличие от IDENTITY. В MySQL Hibernate эмулирует последовательность таблицей users_seq.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -56,25 +69,119 @@ public class User implements UserDetails {
     @Column(name = "password")
     private String password;
 
+    // Домен email в нижнем регистре: фильтр по домену идет по индексу, а не по LIKE '%@domain'.
+    @Column(name = "email_domain", length = 255)
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String emailDomain;
+
+    // Версия строки для оптимистической блокировки и ETag в REST API.
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private long version;
+
     @ManyToMany(cascade = CascadeType.MERGE, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @JoinTable(
             name = "users_roles",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id")
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "idx_users_roles_role", columnList = "role_id, user_id")
     )
     private Collection<Role> role = new HashSet<>();
 
+    // Authority и битовая маска ролей, вычисляются один раз при загрузке principal.
+    @Transient
+    @Setter(AccessLevel.NONE)
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private transient RoleSnapshot roleSnapshot;
+
+    /**
+     * Конструктор со всеми сохраняемыми полями, он же используется сборщиком User.builder().
+     * Вычисляемый снимок ролей в него не входит и строится при первом обращении.
+     */
+    @Builder
+    public User(Long id, String name, String lastname, int age, String email, String password,
+                String emailDomain, long version, Collection<Role> role) {
+        this.id = id;
+        this.name = name;
+        this.lastname = lastname;
+        this.age = age;
+        this.email = email;
+        this.password = password;
+        this.emailDomain = emailDomain;
+        this.version = version;
+        this.role = role;
+    }
+
+    /**
+     * Вычисляет домен email перед вставкой и обновлением.
+     */
+    @PrePersist
+    @PreUpdate
+    void updateEmailDomain() {
+        this.emailDomain = emailDomainOf(email);
+    }
+
+    /**
+     * Возвращает домен email в нижнем регистре.
+     * @param email Email.
+     * @return Часть после последнего "@" или null, если ее нет.
+     */
+    public static String emailDomainOf(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.lastIndexOf('@');
+        return at < 0 || at == email.length() - 1 ? null : email.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Устанавливает роли пользователя и сбрасывает вычисленные authority.
+     * @param role Роли пользователя.
+     */
+    public void setRole(Collection<Role> role) {
+        this.role = role;
+        this.roleSnapshot = null;
+    }
+
     /**
      * Возвращает роли пользователя для Spring Security.
+     * Список строится один раз из общих интернированных объектов (RoleAuthorities),
+     * повторные вызовы не создают новых объектов.
      * @return Коллекция объектов GrantedAuthority.
      */
     @Override
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Collection<? extends GrantedAuthority> authorities = role.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
-                .collect(Collectors.toList());
-        logger.debug("Получение authorities для пользователя {}: {}", email, authorities);
-        return authorities;
+        return roleSnapshot().authorities();
+    }
+
+    /**
+     * Возвращает битовую маску ролей для быстрой проверки доступа.
+     * @return Битовая маска ролей.
+     */
+    @JsonIgnore
+    public long getRoleMask() {
+        return roleSnapshot().mask();
+    }
+
+    private RoleSnapshot roleSnapshot() {
+        RoleSnapshot snapshot = roleSnapshot;
+        if (snapshot == null) {
+            snapshot = new RoleSnapshot(RoleAuthorities.forRoles(role), RoleAuthorities.maskOf(role));
+            roleSnapshot = snapshot;
+            logger.debug("Вычислены authorities для пользователя {}: {}", email, snapshot.authorities());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Неизменяемый снимок ролей principal: финальные поля record безопасно публикуются между потоками.
+     */
+    private record RoleSnapshot(List<GrantedAuthority> authorities, long mask) {
     }
 
     /**
@@ -83,7 +190,6 @@ public class User implements UserDetails {
      */
     @Override
     public boolean isAccountNonExpired() {
-        logger.debug("Проверка isAccountNonExpired для пользователя {}: true", email);
         return true;
     }
 
@@ -93,7 +199,6 @@ public class User implements UserDetails {
      */
     @Override
     public String getUsername() {
-        logger.debug("Получение имени пользователя: {}", email);
         return email;
     }
 
@@ -103,7 +208,6 @@ public class User implements UserDetails {
      */
     @Override
     public boolean isAccountNonLocked() {
-        logger.debug("Проверка isAccountNonLocked для пользователя {}: true", email);
         return true;
     }
 
@@ -113,7 +217,6 @@ public class User implements UserDetails {
      */
     @Override
     public boolean isCredentialsNonExpired() {
-        logger.debug("Проверка isCredentialsNonExpired для пользователя {}: true", email);
         return true;
     }
 
@@ -123,7 +226,6 @@ public class User implements UserDetails {
      */
     @Override
     public boolean isEnabled() {
-        logger.debug("Проверка isEnabled для пользователя {}: true", email);
         return true;
     }
 }
\ No newline at end of file
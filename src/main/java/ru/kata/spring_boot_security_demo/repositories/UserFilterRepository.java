@@ -0,0 +1,24 @@
+package ru.kata.spring_boot_security_demo.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.List;
+
+/**
+ * Выборка пользователей по составным условиям в виде DTO-проекции одним запросом.
+ */
+public interface UserFilterRepository {
+
+    /**
+     * Возвращает пользователей, удовлетворяющих условию, без ролей.
+     * @param specification Условие выборки.
+     * @param sort Порядок сортировки.
+     * @param offset Количество пропускаемых строк.
+     * @param limit Максимальное количество строк.
+     * @return Проекции пользователей.
+     */
+    List<UserDto> findDtos(Specification<User> specification, Sort sort, int offset, int limit);
+}
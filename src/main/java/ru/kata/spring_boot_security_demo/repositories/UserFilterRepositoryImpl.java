@@ -0,0 +1,51 @@
+package ru.kata.spring_boot_security_demo.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.List;
+
+/**
+ * Реализация UserFilterRepository на Criteria API: условие из Specification, выборка SELECT NEW UserDto,
+ * сортировка и LIMIT/OFFSET в одном SQL-запросе, без загрузки сущностей в контекст персистентности.
+ */
+public class UserFilterRepositoryImpl implements UserFilterRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param entityManager Общий EntityManager.
+     */
+    @Autowired
+    public UserFilterRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UserDto> findDtos(Specification<User> specification, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDto> query = cb.createQuery(UserDto.class);
+        Root<User> root = query.from(User.class);
+        query.select(cb.construct(UserDto.class, root.get("id"), root.get("name"), root.get("lastname"),
+                root.get("age"), root.get("email")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
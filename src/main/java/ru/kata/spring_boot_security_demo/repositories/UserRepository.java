@@ -1,18 +1,28 @@
 package ru.kata.spring_boot_security_demo.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserRoleJoinRow;
+import ru.kata.spring_boot_security_demo.dto.UserRoleRow;
 import ru.kata.spring_boot_security_demo.models.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с пользователями.
  * Расширяет JpaRepository для стандартных операций с базой данных.
  */
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserFilterRepository {
 
     /**
      * Находит пользователя по email с подгруженными ролями.
@@ -23,19 +33,311 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     /**
-     * Возвращает всех пользователей с подгруженными ролями.
-     * @return Список пользователей.
+     * Возвращает страницу пользователей с ID больше указанного (keyset-пагинация по первичному ключу).
+     * Роли не загружаются: их дочитывает findRolesByUserIds одним запросом на страницу.
+     * @param afterId ID последнего пользователя предыдущей страницы (0 для первой).
+     * @param limit Размер страницы.
+     * @return Пользователи страницы, упорядоченные по ID.
      */
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserDto(u.id, u.name, u.lastname, u.age, u.email) " +
+            "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserDto> findPageAfter(@Param("afterId") long afterId, Limit limit);
 
-    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.role")
-    List<User> findAllWithRoles();
+    /**
+     * Возвращает пользователей с указанными ID (без ролей).
+     * @param ids Идентификаторы пользователей.
+     * @return Пользователи в произвольном порядке.
+     */
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserDto(u.id, u.name, u.lastname, u.age, u.email) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserDto> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает ID пользователей, у которых email, имя или фамилия содержат подстроку.
+     * Полный просмотр таблицы: используется, только пока поисковый индекс в памяти не заполнен.
+     * @param pattern Шаблон LIKE в нижнем регистре.
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы пользователей, упорядоченные по ID.
+     */
+    @Query("SELECT u.id FROM User u WHERE LOWER(u.email) LIKE :pattern ESCAPE '!' " +
+            "OR LOWER(u.name) LIKE :pattern ESCAPE '!' OR LOWER(u.lastname) LIKE :pattern ESCAPE '!' ORDER BY u.id")
+    List<Long> findIdsLike(@Param("pattern") String pattern, Limit limit);
 
     /**
-     * Находит пользователя по ID с подгруженными ролями.
+     * Возвращает роли указанных пользователей одним запросом.
+     * @param userIds Идентификаторы пользователей.
+     * @return Строки пользователь-роль.
+     */
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserRoleRow(u.id, r.id, r.roleName) " +
+            "FROM User u JOIN u.role r WHERE u.id IN :userIds")
+    List<UserRoleRow> findRolesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Возвращает проекцию пользователя с ролями по ID одним запросом, без загрузки сущностей.
      * @param id Идентификатор пользователя.
-     * @return Пользователь.
+     * @return Строки пользователь-роль (пустой список, если пользователь не найден).
      */
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserRoleJoinRow(u.id, u.name, u.lastname, u.age, u.email, u.version, r.id, r.roleName) " +
+            "FROM User u LEFT JOIN u.role r WHERE u.id = :id ORDER BY r.id")
+    List<UserRoleJoinRow> findUserRowsById(@Param("id") Long id);
 
-    @Query("SELECT u FROM User u LEFT JOIN FETCH u.role WHERE u.id = :id")
-    User getUserWithRoles(@Param("id") Long id);
+    /**
+     * Возвращает текущую версию строки пользователя без чтения остальных полей.
+     * @param id Идентификатор пользователя.
+     * @return Optional с версией.
+     */
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Обновляет поля пользователя одним UPDATE с проверкой и увеличением версии.
+     * @param id Идентификатор пользователя.
+     * @param version Ожидаемая версия или null для безусловного обновления.
+     * @param name Имя.
+     * @param lastname Фамилия.
+     * @param age Возраст.
+     * @param email Email.
+     * @param emailDomain Домен email в нижнем регистре.
+     * @param password Новый хэш пароля или null, чтобы оставить текущий.
+     * @return Количество обновленных строк (0 - пользователь не найден или версия изменилась).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.name = :name, u.lastname = :lastname, u.age = :age, u.email = :email, " +
+            "u.emailDomain = :emailDomain, u.password = COALESCE(:password, u.password), u.version = u.version + 1 " +
+            "WHERE u.id = :id AND (:version IS NULL OR u.version = :version)")
+    int updateIfVersionMatches(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+                               @Param("lastname") String lastname, @Param("age") int age,
+                               @Param("email") String email, @Param("emailDomain") String emailDomain,
+                               @Param("password") String password);
+
+    /**
+     * Проверяет, занят ли email, без загрузки пользователя и ролей.
+     * @param email Email пользователя.
+     * @return true, если пользователь с таким email существует.
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Возвращает email из переданного набора, которые уже заняты.
+     * @param emails Проверяемые email.
+     * @return Занятые email.
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Потоково возвращает все email (для заполнения EmailBloomFilter).
+     * Вызывать внутри транзакции и закрывать поток.
+     * @return Поток email.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Потоково возвращает всех пользователей без ролей (для заполнения UserSearchIndex).
+     * Вызывать внутри транзакции и закрывать поток.
+     * @return Поток пользователей.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserDto(u.id, u.name, u.lastname, u.age, u.email) FROM User u")
+    Stream<UserDto> streamAllUserDtos();
+
+    /**
+     * Потоково возвращает пользователей с ролями для выгрузки, упорядоченных по ID
+     * (строки одного пользователя идут подряд). Сортировка только по u.id совпадает с обходом первичного
+     * ключа users, поэтому первые строки отдаются без временной таблицы и filesort всего соединения;
+     * порядок ролей внутри пользователя не задан. Вызывать внутри транзакции и закрывать поток.
+     * @return Поток строк пользователь-роль.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new ru.kata.spring_boot_security_demo.dto.UserRoleJoinRow(u.id, u.name, u.lastname, u.age, u.email, u.version, r.id, r.roleName) " +
+            "FROM User u LEFT JOIN u.role r ORDER BY u.id")
+    Stream<UserRoleJoinRow> streamExportRows();
+
+    /**
+     * Заменяет хэш пароля, только если он не изменился с момента чтения.
+     * @param id Идентификатор пользователя.
+     * @param oldHash Ожидаемый текущий хэш.
+     * @param newHash Новый хэш.
+     * @return Количество обновленных строк (0 - пароль уже был изменен).
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // Массовые native-запросы объявляют пространство запроса (HINT_NATIVE_SPACES), чтобы Hibernate
+    // инвалидировал в кэше второго уровня только нужные регионы, а не все сразу. Для users_roles
+    // указывается roles: Hibernate сбрасывает коллекцию User.role по таблице ее элементов (Role).
+
+    /**
+     * Удаляет связи с ролями у пользователей с указанными ID.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество удаленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "DELETE FROM users_roles WHERE user_id IN (:ids)", nativeQuery = true)
+    int deleteRoleLinksByUserIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Удаляет пользователей с указанными ID (связи с ролями должны быть удалены заранее).
+     * @param ids Идентификаторы пользователей.
+     * @return Количество удаленных пользователей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "DELETE FROM users WHERE id IN (:ids)", nativeQuery = true)
+    int deleteUsersByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Удаляет связи с ролями у пользователей с указанным доменом email (по индексу idx_users_email_domain).
+     * @param emailDomain Домен email в нижнем регистре (например, tenant.example).
+     * @return Количество удаленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "DELETE FROM users_roles WHERE user_id IN " +
+            "(SELECT u.id FROM users u WHERE u.email_domain = :emailDomain)", nativeQuery = true)
+    int deleteRoleLinksByEmailDomain(@Param("emailDomain") String emailDomain);
+
+    /**
+     * Удаляет пользователей с указанным доменом email (связи с ролями должны быть удалены заранее).
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество удаленных пользователей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "DELETE FROM users WHERE email_domain = :emailDomain", nativeQuery = true)
+    int deleteUsersByEmailDomain(@Param("emailDomain") String emailDomain);
+
+    /**
+     * Назначает роль пользователям с указанными ID одним INSERT ... SELECT (существующие связи пропускаются).
+     * @param roleId Идентификатор роли.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество добавленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "INSERT INTO users_roles (user_id, role_id) SELECT u.id, :roleId FROM users u " +
+            "WHERE u.id IN (:ids) AND NOT EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int assignRoleByUserIds(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Назначает роль пользователям с указанным доменом email (существующие связи пропускаются).
+     * @param roleId Идентификатор роли.
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество добавленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "INSERT INTO users_roles (user_id, role_id) SELECT u.id, :roleId FROM users u " +
+            "WHERE u.email_domain = :emailDomain AND NOT EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int assignRoleByEmailDomain(@Param("roleId") Long roleId, @Param("emailDomain") String emailDomain);
+
+    /**
+     * Привязывает пользователю роли с указанными ID одним INSERT ... SELECT (старые связи должны быть удалены заранее).
+     * @param userId Идентификатор пользователя.
+     * @param roleIds Идентификаторы ролей.
+     * @return Количество добавленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "INSERT INTO users_roles (user_id, role_id) SELECT :userId, r.id FROM roles r " +
+            "WHERE r.id IN (:roleIds)", nativeQuery = true)
+    int insertRoleLinks(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds);
+
+    /**
+     * Увеличивает версию пользователей с указанными ID. Перед изменением или удалением их связей с ролями
+     * блокирует строки users, чтобы все пишущие транзакции захватывали users раньше users_roles.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество обновленных пользователей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersionByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Увеличивает версию пользователей с указанным доменом email (блокирует их строки, как incrementVersionByIds).
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество обновленных пользователей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users SET version = version + 1 WHERE email_domain = :emailDomain", nativeQuery = true)
+    int incrementVersionByEmailDomain(@Param("emailDomain") String emailDomain);
+
+    /**
+     * Увеличивает версию пользователей с указанными ID, у которых нет роли (перед ее назначением).
+     * @param roleId Идентификатор роли.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество пользователей, которым будет добавлена роль.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users u SET u.version = u.version + 1 WHERE u.id IN (:ids) AND NOT EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int incrementVersionWithoutRoleByIds(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Увеличивает версию пользователей с указанным доменом email, у которых нет роли (перед ее назначением).
+     * @param roleId Идентификатор роли.
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество пользователей, которым будет добавлена роль.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users u SET u.version = u.version + 1 WHERE u.email_domain = :emailDomain AND NOT EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int incrementVersionWithoutRoleByEmailDomain(@Param("roleId") Long roleId, @Param("emailDomain") String emailDomain);
+
+    /**
+     * Увеличивает версию пользователей с указанными ID, у которых есть роль (перед ее отзывом).
+     * @param roleId Идентификатор роли.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество пользователей, у которых будет отозвана роль.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users u SET u.version = u.version + 1 WHERE u.id IN (:ids) AND EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int incrementVersionWithRoleByIds(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Увеличивает версию пользователей с указанным доменом email, у которых есть роль (перед ее отзывом).
+     * @param roleId Идентификатор роли.
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество пользователей, у которых будет отозвана роль.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users u SET u.version = u.version + 1 WHERE u.email_domain = :emailDomain AND EXISTS " +
+            "(SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)", nativeQuery = true)
+    int incrementVersionWithRoleByEmailDomain(@Param("roleId") Long roleId, @Param("emailDomain") String emailDomain);
+
+    /**
+     * Отзывает роль у пользователей с указанными ID.
+     * @param roleId Идентификатор роли.
+     * @param ids Идентификаторы пользователей.
+     * @return Количество удаленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "DELETE FROM users_roles WHERE role_id = :roleId AND user_id IN (:ids)", nativeQuery = true)
+    int revokeRoleByUserIds(@Param("roleId") Long roleId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Отзывает роль у пользователей с указанным доменом email.
+     * @param roleId Идентификатор роли.
+     * @param emailDomain Домен email в нижнем регистре.
+     * @return Количество удаленных связей.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "roles"))
+    @Query(value = "DELETE FROM users_roles WHERE role_id = :roleId AND user_id IN " +
+            "(SELECT u.id FROM users u WHERE u.email_domain = :emailDomain)", nativeQuery = true)
+    int revokeRoleByEmailDomain(@Param("roleId") Long roleId, @Param("emailDomain") String emailDomain);
 }
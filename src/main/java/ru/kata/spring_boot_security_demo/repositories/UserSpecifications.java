@@ -0,0 +1,57 @@
+package ru.kata.spring_boot_security_demo.repositories;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.kata.spring_boot_security_demo.models.User;
+
+/**
+ * Составные условия выборки пользователей. Каждое условие соответствует индексу таблицы users
+ * или users_roles и не оборачивает столбец в функцию, чтобы индекс оставался применимым.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Возраст в диапазоне (границы включительно; null - граница не задана).
+     * @param min Минимальный возраст.
+     * @param max Максимальный возраст.
+     * @return Условие по индексу idx_users_age.
+     */
+    public static Specification<User> ageBetween(Integer min, Integer max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.get("age"), min, max);
+            }
+            return min != null ? cb.greaterThanOrEqualTo(root.get("age"), min) : cb.lessThanOrEqualTo(root.get("age"), max);
+        };
+    }
+
+    /**
+     * Наличие роли. Соединение не дублирует строки: пара пользователь-роль уникальна.
+     * @param roleId Идентификатор роли.
+     * @return Условие по индексу idx_users_roles_role.
+     */
+    public static Specification<User> hasRole(Long roleId) {
+        return (root, query, cb) -> cb.equal(root.join("role").get("id"), roleId);
+    }
+
+    /**
+     * Фамилия начинается с префикса. Регистр учитывается согласно collation столбца.
+     * @param prefix Префикс фамилии.
+     * @return Условие по индексу idx_users_last_name.
+     */
+    public static Specification<User> lastnameStartsWith(String prefix) {
+        String pattern = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return (root, query, cb) -> cb.like(root.get("lastname"), pattern, '!');
+    }
+
+    /**
+     * Email в домене.
+     * @param domain Домен в нижнем регистре.
+     * @return Условие по индексу idx_users_email_domain.
+     */
+    public static Specification<User> emailDomain(String domain) {
+        return (root, query, cb) -> cb.equal(root.get("emailDomain"), domain);
+    }
+}
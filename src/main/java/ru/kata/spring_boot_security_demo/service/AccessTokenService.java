@@ -0,0 +1,31 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.Optional;
+
+/**
+ * Интерфейс сервиса подписанных токенов доступа к API.
+ */
+public interface AccessTokenService {
+
+    /**
+     * Выпускает токен для пользователя.
+     * @param user Аутентифицированный пользователь с ролями.
+     * @return Токен в компактном виде.
+     */
+    String issue(User user);
+
+    /**
+     * Проверяет подпись и срок действия токена без обращения к базе данных.
+     * @param token Токен.
+     * @return Пользователь (id, email, роли), восстановленный из токена, или пустой Optional.
+     */
+    Optional<User> verify(String token);
+
+    /**
+     * Возвращает время жизни выпускаемых токенов.
+     * @return Время жизни в секундах.
+     */
+    long getTtlSeconds();
+}
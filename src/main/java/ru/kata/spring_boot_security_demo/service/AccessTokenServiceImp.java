@@ -0,0 +1,172 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса токенов доступа на HMAC-SHA256.
+ * Формат токена: v1.{kid}.{payload}.{signature}, где payload - base64url строк
+ * "id\nexp\nроли\nemail", а signature - HMAC от "v1.{kid}.{payload}".
+ * Первый ключ из app.security.token.keys подписывает новые токены, остальные ("предыдущие")
+ * принимаются только в течение окна ротации после запуска приложения.
+ */
+@Service
+@ConditionalOnProperty(name = "app.security.token.enabled", havingValue = "true")
+public class AccessTokenServiceImp implements AccessTokenService {
+
+    // Логгер для отслеживания операций с токенами.
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenServiceImp.class);
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, Mac> keys = new LinkedHashMap<>();
+    private final String activeKeyId;
+    private final Duration ttl;
+    private final Instant previousKeysValidUntil;
+    private final Clock clock;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param keySpec Ключи в формате "kid:base64-секрет,kid:base64-секрет"; первый - активный.
+     * @param ttl Время жизни токена.
+     * @param rotationWindow Сколько после запуска принимаются токены, подписанные предыдущими ключами.
+     */
+    @Autowired
+    public AccessTokenServiceImp(@Value("${app.security.token.keys:}") String keySpec,
+                                 @Value("${app.security.token.ttl:15m}") Duration ttl,
+                                 @Value("${app.security.token.rotation-window:1h}") Duration rotationWindow) {
+        this(keySpec, ttl, rotationWindow, Clock.systemUTC());
+    }
+
+    /**
+     * Конструктор с источником времени (для проверки срока действия и окна ротации в тестах).
+     * @param keySpec Ключи в формате "kid:base64-секрет,kid:base64-секрет"; первый - активный.
+     * @param ttl Время жизни токена.
+     * @param rotationWindow Сколько после запуска принимаются токены, подписанные предыдущими ключами.
+     * @param clock Источник времени.
+     */
+    AccessTokenServiceImp(String keySpec, Duration ttl, Duration rotationWindow, Clock clock) {
+        logger.info("Инициализация AccessTokenServiceImp");
+        this.ttl = ttl;
+        this.clock = clock;
+        this.previousKeysValidUntil = this.clock.instant().plus(rotationWindow);
+        if (StringUtils.hasText(keySpec)) {
+            for (String entry : keySpec.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2 || parts[0].isBlank()) {
+                    throw new IllegalArgumentException("Invalid app.security.token.keys entry, expected kid:base64-secret");
+                }
+                keys.put(parts[0], createMac(Base64.getDecoder().decode(parts[1])));
+            }
+        } else {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            keys.put("local", createMac(secret));
+            logger.warn("app.security.token.keys не задан: используется случайный ключ, токены действительны только на этом экземпляре");
+        }
+        this.activeKeyId = keys.keySet().iterator().next();
+    }
+
+    @Override
+    public String issue(User user) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String roles = user.getRole().stream()
+                .map(Role::getRoleName)
+                .collect(Collectors.joining(","));
+        String payload = user.getId() + "\n" + expiresAt + "\n" + roles + "\n" + user.getEmail();
+        String signedPart = VERSION + "." + activeKeyId + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        logger.debug("Выпуск токена для пользователя {}", user.getEmail());
+        return signedPart + "." + ENCODER.encodeToString(sign(activeKeyId, signedPart));
+    }
+
+    @Override
+    public Optional<User> verify(String token) {
+        try {
+            int signatureStart = token.lastIndexOf('.');
+            String[] header = token.substring(0, Math.max(signatureStart, 0)).split("\\.");
+            if (signatureStart < 0 || header.length != 3 || !VERSION.equals(header[0]) || !keys.containsKey(header[1])) {
+                return Optional.empty();
+            }
+            String keyId = header[1];
+            if (!keyId.equals(activeKeyId) && clock.instant().isAfter(previousKeysValidUntil)) {
+                logger.debug("Токен подписан ключом {}, окно ротации истекло", keyId);
+                return Optional.empty();
+            }
+            String signedPart = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(signature, sign(keyId, signedPart))) {
+                return Optional.empty();
+            }
+            String[] claims = new String(DECODER.decode(header[2]), StandardCharsets.UTF_8).split("\n", 4);
+            if (claims.length != 4 || Long.parseLong(claims[1]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            Set<Role> roles = new HashSet<>();
+            for (String roleName : claims[2].split(",")) {
+                if (!roleName.isEmpty()) {
+                    roles.add(new Role(roleName));
+                }
+            }
+            User user = new User();
+            user.setId(Long.valueOf(claims[0]));
+            user.setEmail(claims[3]);
+            user.setRole(roles);
+            return Optional.of(user);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Некорректный токен: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public long getTtlSeconds() {
+        return ttl.toSeconds();
+    }
+
+    private byte[] sign(String keyId, String signedPart) {
+        try {
+            // Клон подготовленного Mac дешевле, чем getInstance + init на каждый запрос
+            Mac mac = (Mac) keys.get(keyId).clone();
+            return mac.doFinal(signedPart.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Mac createMac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+}
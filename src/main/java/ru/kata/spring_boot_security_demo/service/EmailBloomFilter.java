@@ -0,0 +1,96 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.util.StringBloomFilter;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Вероятностный предфильтр занятых email.
+ * Заполняется из базы после старта (StartupWarmup) и пополняется UserServiceImp при записи пользователей.
+ * Пока фильтр не заполнен, mightContain всегда возвращает true и проверка идет в базу.
+ * Фильтр видит только записи этого экземпляра приложения: пользователи, добавленные другим экземпляром,
+ * UserSeeder или напрямую в базу, в него не попадают. Поэтому он выключен по умолчанию
+ * (app.users.email-filter.enabled) и включается только при единственном экземпляре, пишущем в базу.
+ */
+@Component
+public class EmailBloomFilter {
+
+    // Логгер для отслеживания загрузки фильтра.
+    private static final Logger logger = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+    private final UserRepository userRepository;
+    private final StringBloomFilter filter;
+    private final boolean enabled;
+    private volatile boolean ready;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userRepository Репозиторий пользователей.
+     * @param expectedUsers Ожидаемое количество пользователей.
+     * @param falsePositiveRate Допустимая доля ложноположительных ответов.
+     * @param enabled Доверять ли отрицательным ответам фильтра (иначе фильтр не заполняется).
+     */
+    @Autowired
+    public EmailBloomFilter(UserRepository userRepository,
+                            @Value("${app.users.email-filter.expected-users:1000000}") long expectedUsers,
+                            @Value("${app.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${app.users.email-filter.enabled:false}") boolean enabled) {
+        logger.info("Инициализация EmailBloomFilter: {}, ожидается {} пользователей",
+                enabled ? "включен" : "выключен", expectedUsers);
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.filter = new StringBloomFilter(enabled ? expectedUsers : 1, falsePositiveRate);
+    }
+
+    /**
+     * Заполняет фильтр всеми email из базы потоковым чтением.
+     * Читает основную базу, а не реплику: email, пропущенный отстающей репликой, фильтр считал бы свободным.
+     */
+    @Transactional
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long count;
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            count = emails.mapToLong(email -> {
+                put(email);
+                return 1;
+            }).sum();
+        }
+        ready = true;
+        logger.info("EmailBloomFilter заполнен: {} email", count);
+    }
+
+    /**
+     * Добавляет email в фильтр.
+     * @param email Email пользователя.
+     */
+    public void put(String email) {
+        if (email != null) {
+            filter.put(normalize(email));
+        }
+    }
+
+    /**
+     * Проверяет, может ли email быть занят.
+     * @param email Email.
+     * @return false, если email точно свободен.
+     */
+    public boolean mightContain(String email) {
+        return !ready || email == null || filter.mightContain(normalize(email));
+    }
+
+    // Приведение к нижнему регистру: сравнение email в базе не зависит от регистра.
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kata.spring_boot_security_demo.service;
+
+/**
+ * Интерфейс сервиса фонового перехэширования паролей.
+ */
+public interface PasswordUpgradeService {
+
+    /**
+     * Ставит в очередь перехэширование пароля с текущими настройками шифровщика.
+     * Если очередь заполнена, задача отбрасывается и будет повторена при следующем логине.
+     * @param userId Идентификатор пользователя.
+     * @param currentHash Хэш, с которым пользователь только что успешно вошел.
+     * @param rawPassword Пароль в открытом виде.
+     */
+    void upgradeAsync(Long userId, String currentHash, String rawPassword);
+}
@@ -0,0 +1,93 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация сервиса фонового перехэширования паролей.
+ * Новый хэш вычисляется через общий пул хэширования, а запись в базу выполняется
+ * условным UPDATE, чтобы не затереть пароль, измененный параллельно.
+ */
+@Service
+public class PasswordUpgradeServiceImp implements PasswordUpgradeService {
+
+    // Логгер для отслеживания операций в сервисе.
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUpgradeServiceImp.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param passwordEncoder Шифровщик паролей.
+     * @param userRepository Репозиторий пользователей.
+     * @param userDetailsCache Кэш загруженных пользователей.
+     * @param transactionTemplate Шаблон транзакций.
+     * @param queueCapacity Емкость очереди задач перехэширования.
+     */
+    @Autowired
+    public PasswordUpgradeServiceImp(PasswordEncoder passwordEncoder, UserRepository userRepository,
+                                     UserDetailsCache userDetailsCache, TransactionTemplate transactionTemplate,
+                                     @Value("${app.security.bcrypt.upgrade-queue-capacity:256}") int queueCapacity) {
+        logger.info("Инициализация PasswordUpgradeServiceImp");
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-upgrade");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void upgradeAsync(Long userId, String currentHash, String rawPassword) {
+        try {
+            executor.execute(() -> upgrade(userId, currentHash, rawPassword));
+            logger.debug("Перехэширование пароля пользователя {} поставлено в очередь", userId);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Очередь перехэширования заполнена, пользователь {} пропущен", userId);
+        }
+    }
+
+    private void upgrade(Long userId, String currentHash, String rawPassword) {
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            Integer updated = transactionTemplate.execute(status ->
+                    userRepository.updatePasswordIfUnchanged(userId, currentHash, newHash));
+            if (updated != null && updated > 0) {
+                userDetailsCache.evict(userId, null);
+                logger.info("Пароль пользователя {} перехэширован с текущими настройками", userId);
+            } else {
+                logger.debug("Пароль пользователя {} изменился, перехэширование пропущено", userId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось перехэшировать пароль пользователя {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает фоновый поток при завершении приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
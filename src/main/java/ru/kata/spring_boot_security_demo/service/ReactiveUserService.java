@@ -0,0 +1,29 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+
+/**
+ * Интерфейс сервиса неблокирующего чтения пользователей.
+ * Ответы совпадают с ответами UserService, но запросы к базе не занимают поток на время ожидания.
+ */
+@Component
+public interface ReactiveUserService {
+
+    /**
+     * Возвращает данные пользователя с ролями.
+     * @param id Идентификатор пользователя.
+     * @return Пользователь или ошибка UserNotFoundException, если он не найден.
+     */
+    Mono<UserDto> getUserDto(long id);
+
+    /**
+     * Возвращает страницу пользователей, упорядоченных по ID.
+     * @param cursor Курсор из предыдущей страницы или null для первой страницы.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с курсором на следующую.
+     */
+    Mono<UserPage> getUsersPage(String cursor, Integer size);
+}
@@ -0,0 +1,162 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import io.r2dbc.spi.Readable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.kata.spring_boot_security_demo.dto.RoleDto;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+import ru.kata.spring_boot_security_demo.dto.UserRoleRow;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+import ru.kata.spring_boot_security_demo.util.UserNotFoundException;
+import ru.kata.spring_boot_security_demo.util.UserPageCursor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация сервиса неблокирующего чтения пользователей через R2DBC DatabaseClient.
+ * Запросы те же, что у UserServiceImp: пользователь с ролями - одним соединением таблиц,
+ * страница - keyset по первичному ключу и роли страницы одним запросом по списку ID.
+ * Транзакции не используются: каждое чтение - один самостоятельный запрос.
+ */
+@Service
+public class ReactiveUserServiceImp implements ReactiveUserService {
+
+    // Логгер для отслеживания операций неблокирующего чтения пользователей.
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveUserServiceImp.class);
+
+    private static final String USER_WITH_ROLES_SQL =
+            "SELECT u.id, u.name, u.last_name, u.age, u.email, r.id AS role_id, r.role_name FROM users u " +
+            "LEFT JOIN users_roles ur ON ur.user_id = u.id LEFT JOIN roles r ON r.id = ur.role_id WHERE u.id = :id " +
+            "ORDER BY r.id";
+    private static final String PAGE_SQL =
+            "SELECT id, name, last_name, age, email FROM users WHERE id > :afterId ORDER BY id LIMIT :limit";
+    private static final String PAGE_ROLES_SQL =
+            "SELECT ur.user_id, r.id AS role_id, r.role_name FROM users_roles ur " +
+            "JOIN roles r ON r.id = ur.role_id WHERE ur.user_id IN (:userIds) ORDER BY ur.user_id, ur.role_id";
+
+    private final DatabaseClient databaseClient;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param databaseClient Неблокирующий клиент базы данных.
+     * @param defaultPageSize Размер страницы по умолчанию.
+     * @param maxPageSize Максимальный размер страницы.
+     */
+    @Autowired
+    public ReactiveUserServiceImp(DatabaseClient databaseClient,
+                                  @Value("${app.users.page.default-size:50}") int defaultPageSize,
+                                  @Value("${app.users.page.max-size:500}") int maxPageSize) {
+        logger.info("Инициализация ReactiveUserServiceImp");
+        this.databaseClient = databaseClient;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Возвращает данные пользователя с ролями, прочитанные одним запросом.
+     * @param id Идентификатор пользователя.
+     * @return Пользователь или ошибка UserNotFoundException, если он не найден.
+     */
+    @Override
+    public Mono<UserDto> getUserDto(long id) {
+        logger.info("Неблокирующий поиск пользователя с ролями по ID: {}", id);
+        return databaseClient.sql(USER_WITH_ROLES_SQL)
+                .bind("id", id)
+                .map(row -> new UserWithRoleRow(user(row), row.get("role_id", Long.class), row.get("role_name", String.class)))
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        logger.error("Пользователь с ID {} не найден", id);
+                        return Mono.error(new UserNotFoundException());
+                    }
+                    List<RoleDto> roles = new ArrayList<>(rows.size());
+                    for (UserWithRoleRow row : rows) {
+                        if (row.roleId() != null) {
+                            roles.add(new RoleDto(row.roleId(), row.roleName()));
+                        }
+                    }
+                    return Mono.just(rows.get(0).user().withRoles(roles));
+                });
+    }
+
+    /**
+     * Возвращает страницу пользователей, упорядоченных по ID (keyset-пагинация).
+     * @param cursor Курсор из предыдущей страницы или null для первой страницы.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с курсором на следующую.
+     * @throws UserBadRequestException Если курсор поврежден или размер страницы вне допустимых границ.
+     */
+    @Override
+    public Mono<UserPage> getUsersPage(String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new UserBadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        long afterId = UserPageCursor.decode(cursor);
+        logger.info("Неблокирующий запрос страницы пользователей после ID {} размером {}", afterId, pageSize);
+        // Запрашивается на одну запись больше, чтобы узнать, есть ли следующая страница
+        return databaseClient.sql(PAGE_SQL)
+                .bind("afterId", afterId)
+                .bind("limit", pageSize + 1)
+                .map(ReactiveUserServiceImp::user)
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    boolean hasNext = rows.size() > pageSize;
+                    List<UserDto> page = hasNext ? rows.subList(0, pageSize) : rows;
+                    if (page.isEmpty()) {
+                        return Mono.just(new UserPage(List.of(), null));
+                    }
+                    String nextCursor = hasNext ? UserPageCursor.encode(page.get(page.size() - 1).id()) : null;
+                    return withRoles(page).map(items -> new UserPage(items, nextCursor));
+                });
+    }
+
+    // Роли страницы дочитываются одним запросом по списку ID, как в UserServiceImp
+    private Mono<List<UserDto>> withRoles(List<UserDto> users) {
+        List<Long> ids = new ArrayList<>(users.size());
+        for (UserDto user : users) {
+            ids.add(user.id());
+        }
+        return databaseClient.sql(PAGE_ROLES_SQL)
+                .bind("userIds", ids)
+                .map(row -> new UserRoleRow(row.get("user_id", Long.class), row.get("role_id", Long.class),
+                        row.get("role_name", String.class)))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    Map<Long, List<RoleDto>> rolesByUser = new HashMap<>();
+                    for (UserRoleRow row : rows) {
+                        rolesByUser.computeIfAbsent(row.userId(), id -> new ArrayList<>())
+                                .add(new RoleDto(row.roleId(), row.roleName()));
+                    }
+                    List<UserDto> result = new ArrayList<>(users.size());
+                    for (UserDto user : users) {
+                        result.add(user.withRoles(rolesByUser.getOrDefault(user.id(), List.of())));
+                    }
+                    logger.debug("Возвращено пользователей: {}", result.size());
+                    return result;
+                });
+    }
+
+    private static UserDto user(Readable row) {
+        return new UserDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("last_name", String.class), row.get("age", Integer.class), row.get("email", String.class));
+    }
+
+    // Строка соединения пользователя с одной из его ролей (пользователь без ролей дает одну строку с пустой ролью)
+    private record UserWithRoleRow(UserDto user, Long roleId, String roleName) {
+    }
+}
@@ -2,43 +2,78 @@ package ru.kata.spring_boot_security_demo.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.kata.spring_boot_security_demo.models.Role;
 import ru.kata.spring_boot_security_demo.repositories.RoleRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Реализация сервиса для работы с ролями.
+ * Роли загружаются при старте в неизменяемый реестр (ID и имя -> роль), поэтому поиск ролей
+ * не обращается к базе и не берет блокировок. save заменяет реестр новой копией (copy-on-write).
+ * Возвращаемые объекты Role общие для всех вызывающих и не должны изменяться.
+ * Реестр загружается после создания всех бинов, чтобы не ждать фонового построения
+ * EntityManagerFactory при создании остальных бинов (StartupConfig).
  */
 @Service
-public class RoleServiceImp implements RoleService {
+public class RoleServiceImp implements RoleService, SmartInitializingSingleton {
 
     //Логгер для отслеживания операций в сервисе
     private static final Logger logger = LoggerFactory.getLogger(RoleServiceImp.class);
 
+    private final RoleRepository roleRepository;
+
+    // Текущий снимок реестра; заменяется целиком, читается без блокировок
+    private volatile RoleRegistry registry = RoleRegistry.of(List.of());
+    // Сериализует запись реестра; ReentrantLock вместо synchronized не закрепляет виртуальный поток на время запроса к базе
+    private final ReentrantLock writeLock = new ReentrantLock();
+
     /**
      * Конструктор для инъекции зависимостей.
      * @param roleRepository Репозиторий ролей.
      */
-    private final RoleRepository roleRepository;
-
     @Autowired
     public RoleServiceImp(RoleRepository roleRepository) {
         logger.info("Инициализация RoleServiceImp");
         this.roleRepository = roleRepository;
     }
 
+    /**
+     * Загружает реестр ролей после создания всех бинов, до запуска веб-сервера.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * Загружает реестр ролей из базы данных.
+     */
+    public void reload() {
+        writeLock.lock();
+        try {
+            registry = RoleRegistry.of(roleRepository.findAll());
+            logger.info("Реестр ролей загружен: {}", registry.all().size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     /**
      * Возвращает список всех ролей.
-     * @return Список ролей.
+     * @return Неизменяемый список ролей.
      */
     @Override
     public List<Role> findAll() {
-        logger.info("Запрос списка всех ролей");
-        List<Role> roles = roleRepository.findAll();
+        List<Role> roles = registry.all();
         logger.debug("Найдено ролей: {}", roles.size());
         return roles;
     }
@@ -50,8 +85,7 @@ public class RoleServiceImp implements RoleService {
      */
     @Override
     public Optional<Role> findById(long id) {
-        logger.info("Поиск роли с ID: {}", id);
-        Optional<Role> role = roleRepository.findById(id);
+        Optional<Role> role = Optional.ofNullable(registry.byId().get(id));
         logger.debug("Результат поиска роли с ID {}: {}", id, role.isPresent() ? role.get() : "не найдена");
         return role;
     }
@@ -64,32 +98,59 @@ public class RoleServiceImp implements RoleService {
      */
     @Override
     public Role getById(long id) {
-        logger.info("Получение роли с ID: {}", id);
-        Role role = roleRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Роль с ID {} не найдена", id);
-                    return new RuntimeException("Role not found with id: " + id);
-        });
+        Role role = registry.byId().get(id);
+        if (role == null) {
+            logger.error("Роль с ID {} не найдена", id);
+            throw new RuntimeException("Role not found with id: " + id);
+        }
         logger.debug("Роль найдена: {}", role);
         return role;
     }
 
     /**
-     * Сохраняет роль в базе данных.
+     * Сохраняет роль в базе данных и публикует новый снимок реестра.
      * @param role Роль для сохранения.
      */
     @Override
     public void save(Role role) {
         logger.info("Сохранение роли: {}", role.getRoleName());
-        roleRepository.save(role);
-        logger.debug("Роль успешно сохранена: {}", role);
+        writeLock.lock();
+        try {
+            Role saved = roleRepository.save(role);
+            List<Role> roles = new ArrayList<>(registry.all().size() + 1);
+            for (Role existing : registry.all()) {
+                if (!existing.getId().equals(saved.getId())) {
+                    roles.add(existing);
+                }
+            }
+            roles.add(saved);
+            registry = RoleRegistry.of(roles);
+            logger.debug("Роль успешно сохранена: {}", saved);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     public Role findByRoleName(String roleName) {
-        logger.info("Поиск роли по имени: {}", roleName);
-        Role role = roleRepository.findByRoleName(roleName);
+        Role role = registry.byName().get(roleName);
         logger.debug("Результат поиска роли {}: {}", roleName, role != null ? role : "не найдена");
         return role;
     }
+
+    /**
+     * Неизменяемый снимок ролей с индексами по ID и имени.
+     */
+    private record RoleRegistry(List<Role> all, Map<Long, Role> byId, Map<String, Role> byName) {
+
+        static RoleRegistry of(List<Role> roles) {
+            Map<Long, Role> byId = new HashMap<>();
+            Map<String, Role> byName = new HashMap<>();
+            for (Role role : roles) {
+                byId.put(role.getId(), role);
+                byName.put(role.getRoleName(), role);
+            }
+            return new RoleRegistry(List.copyOf(roles), Map.copyOf(byId), Map.copyOf(byName));
+        }
+    }
 }
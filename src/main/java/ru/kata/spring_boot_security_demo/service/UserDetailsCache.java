@@ -0,0 +1,115 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.util.TransactionCallbacks;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш загруженных пользователей (principal) по email.
+ * Счетчики попаданий, промахов и вытеснений публикуются в Micrometer как метрики cache.* с тегом cache=userDetails.
+ */
+@Component
+public class UserDetailsCache {
+
+    // Логгер для отслеживания операций с кэшем.
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    private final Cache<String, User> cache;
+
+    // Обратный индекс ID -> email, чтобы инвалидировать запись после смены email.
+    private final ConcurrentMap<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param maxSize Максимальное количество записей.
+     * @param ttl Время жизни записи.
+     * @param meterRegistry Реестр метрик.
+     */
+    @Autowired
+    public UserDetailsCache(@Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.security.user-cache.ttl:10m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        logger.info("Инициализация UserDetailsCache: maxSize={}, ttl={}", maxSize, ttl);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .evictionListener((String email, User user, RemovalCause cause) -> {
+                    if (user != null) {
+                        emailsById.remove(user.getId(), email);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Возвращает пользователя из кэша.
+     * @param email Email пользователя.
+     * @return Пользователь или null, если записи нет.
+     */
+    public User get(String email) {
+        return cache.getIfPresent(email);
+    }
+
+    /**
+     * Помещает пользователя в кэш.
+     * @param user Пользователь с загруженными ролями.
+     */
+    public void put(User user) {
+        cache.put(user.getEmail(), user);
+        emailsById.put(user.getId(), user.getEmail());
+    }
+
+    /**
+     * Удаляет запись пользователя сразу и повторно после коммита транзакции,
+     * чтобы параллельный логин не вернул в кэш незафиксированное состояние.
+     * @param id Идентификатор пользователя (может быть null).
+     * @param email Email пользователя (может быть null).
+     */
+    public void evict(Long id, String email) {
+        evictNow(id, email);
+        TransactionCallbacks.afterCommit(() -> evictNow(id, email));
+    }
+
+    /**
+     * Очищает кэш целиком сразу и повторно после коммита транзакции.
+     * Используется массовыми операциями, после которых отдельные записи не отследить.
+     */
+    public void evictAll() {
+        evictAllNow();
+        TransactionCallbacks.afterCommit(this::evictAllNow);
+    }
+
+    private void evictAllNow() {
+        cache.invalidateAll();
+        emailsById.clear();
+        logger.debug("Кэш пользователей очищен");
+    }
+
+    private void evictNow(Long id, String email) {
+        if (id != null) {
+            String cachedEmail = emailsById.remove(id);
+            if (cachedEmail != null) {
+                cache.invalidate(cachedEmail);
+            }
+        }
+        if (email != null) {
+            cache.invalidate(email);
+        }
+        logger.debug("Инвалидирована запись кэша: id={}, email={}", id, email);
+    }
+}
@@ -24,19 +24,23 @@ public class UserDetailsServiceImp implements UserDetailsService {
     private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImp.class);
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     /**
      * Конструктор для инъекции зависимостей.
      * @param userRepository Репозиторий пользователей.
+     * @param userDetailsCache Кэш загруженных пользователей.
      */
     @Autowired
-    public UserDetailsServiceImp(UserRepository userRepository) {
+    public UserDetailsServiceImp(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         logger.info("Инициализация UserDetailsServiceImp");
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
      * Загружает пользователя по email для аутентификации.
+     * Сначала проверяет кэш, при промахе выполняет запрос к базе и кэширует результат.
      * @param email Email пользователя.
      * @return UserDetails Объект пользователя.
      * @throws UsernameNotFoundException Если пользователь не найден.
@@ -44,12 +48,20 @@ public class UserDetailsServiceImp implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         logger.info("Поиск пользователя по email: {}", email);
+        User cached = userDetailsCache.get(email);
+        if (cached != null) {
+            logger.debug("Пользователь {} найден в кэше", email);
+            return cached;
+        }
         Optional<User> person = userRepository.findByEmail(email);
         if (person.isEmpty()) {
             logger.error("Пользователь с email {} не найден", email);
             throw new UsernameNotFoundException("User not found");
         }
         logger.debug("Пользователь найден: {}", person.get().getEmail());
+        // Authority вычисляются один раз, пока роли загружены, и дальше переиспользуются
+        person.get().getAuthorities();
+        userDetailsCache.put(person.get());
         return person.get();
     }
 }
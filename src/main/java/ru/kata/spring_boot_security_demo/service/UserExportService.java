@@ -0,0 +1,23 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Интерфейс сервиса потоковой выгрузки пользователей.
+ */
+@Component
+public interface UserExportService {
+
+    /**
+     * Пишет всех пользователей в поток в указанном формате.
+     * @param format Формат выгрузки.
+     * @param out Поток ответа.
+     * @return Количество выгруженных пользователей.
+     * @throws IOException Если возникает ошибка записи.
+     */
+    long export(UserFileFormat format, OutputStream out) throws IOException;
+}
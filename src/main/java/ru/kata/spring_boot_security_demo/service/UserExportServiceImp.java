@@ -0,0 +1,171 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring_boot_security_demo.dto.RoleDto;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.dto.UserRoleJoinRow;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Сервис потоковой выгрузки пользователей.
+ * Строки читаются курсором с фиксированным fetch size и сразу пишутся в ответ, поэтому
+ * в памяти одновременно находится только текущий пользователь и буфер записи.
+ */
+@Service
+public class UserExportServiceImp implements UserExportService {
+
+    // Логгер для отслеживания выгрузок.
+    private static final Logger logger = LoggerFactory.getLogger(UserExportServiceImp.class);
+
+    private static final String CSV_HEADER = "id,name,lastname,age,email,roles";
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int flushEvery;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userRepository Репозиторий пользователей.
+     * @param objectMapper Сериализатор JSON.
+     * @param flushEvery Через сколько пользователей сбрасывать буфер в ответ.
+     */
+    @Autowired
+    public UserExportServiceImp(UserRepository userRepository, ObjectMapper objectMapper,
+                                @Value("${app.users.export.flush-every:500}") int flushEvery) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Пишет всех пользователей в поток в указанном формате.
+     * Транзакция только на чтение: DTO-проекция не попадает в контекст персистентности.
+     * @param format Формат выгрузки.
+     * @param out Поток ответа.
+     * @return Количество выгруженных пользователей.
+     * @throws IOException Если возникает ошибка записи (например, клиент закрыл соединение).
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long export(UserFileFormat format, OutputStream out) throws IOException {
+        logger.info("Начало выгрузки пользователей в формате {}", format);
+        long startNanos = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator generator = format == UserFileFormat.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (format == UserFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long count = 0;
+        try (Stream<UserRoleJoinRow> rows = userRepository.streamExportRows()) {
+            Iterator<UserRoleJoinRow> iterator = rows.iterator();
+            UserRoleJoinRow first = iterator.hasNext() ? iterator.next() : null;
+            while (first != null) {
+                // Строки одного пользователя идут подряд: собираем его роли до смены ID
+                List<RoleDto> roles = new ArrayList<>(2);
+                addRole(roles, first);
+                UserRoleJoinRow next = null;
+                while (iterator.hasNext()) {
+                    UserRoleJoinRow row = iterator.next();
+                    if (!row.id().equals(first.id())) {
+                        next = row;
+                        break;
+                    }
+                    addRole(roles, row);
+                }
+                // База отдает роли пользователя в произвольном порядке, в выгрузке они упорядочены по ID
+                roles.sort(Comparator.comparing(RoleDto::id));
+                UserDto user = new UserDto(first.id(), first.name(), first.lastname(), first.age(), first.email(), roles);
+                if (generator != null) {
+                    generator.writeObject(user);
+                    generator.writeRaw('\n');
+                } else {
+                    writeCsv(writer, user);
+                }
+                if (++count % flushEvery == 0) {
+                    if (generator != null) {
+                        generator.flush();
+                    } else {
+                        writer.flush();
+                    }
+                }
+                first = next;
+            }
+        }
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        logger.info("Выгружено пользователей: {} за {} мс", count, (System.nanoTime() - startNanos) / 1_000_000);
+        return count;
+    }
+
+    private static void addRole(List<RoleDto> roles, UserRoleJoinRow row) {
+        if (row.roleId() != null) {
+            roles.add(new RoleDto(row.roleId(), row.roleName()));
+        }
+    }
+
+    private static void writeCsv(Writer writer, UserDto user) throws IOException {
+        writer.write(Long.toString(user.id()));
+        writer.write(',');
+        writeCsvField(writer, user.name());
+        writer.write(',');
+        writeCsvField(writer, user.lastname());
+        writer.write(',');
+        writer.write(Integer.toString(user.age()));
+        writer.write(',');
+        writeCsvField(writer, user.email());
+        writer.write(',');
+        StringBuilder roles = new StringBuilder();
+        for (RoleDto role : user.role()) {
+            if (!roles.isEmpty()) {
+                roles.append(' ');
+            }
+            roles.append(role.roleName());
+        }
+        writeCsvField(writer, roles.toString());
+        writer.write('\n');
+    }
+
+    // Экранирование по RFC 4180; значения, похожие на формулу, предваряются апострофом
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char lead = value.charAt(0);
+        if (lead == '=' || lead == '+' || lead == '-' || lead == '@') {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,25 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.dto.UserImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Интерфейс сервиса массового импорта пользователей.
+ */
+@Component
+public interface UserImportService {
+
+    /**
+     * Импортирует пользователей из потока.
+     * Некорректные строки пропускаются и попадают в отчет, остальные сохраняются.
+     * @param format Формат входных данных.
+     * @param in Поток с данными.
+     * @return Отчет об импорте.
+     * @throws IOException Если возникает ошибка чтения.
+     */
+    UserImportReport importUsers(UserFileFormat format, InputStream in) throws IOException;
+}
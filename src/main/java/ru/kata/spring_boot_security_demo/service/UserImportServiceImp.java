@@ -0,0 +1,362 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring_boot_security_demo.configs.PooledPasswordEncoder;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.dto.UserImportError;
+import ru.kata.spring_boot_security_demo.dto.UserImportReport;
+import ru.kata.spring_boot_security_demo.dto.UserImportRow;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.RoleAuthorities;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.util.CsvReader;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Сервис массового импорта пользователей из CSV или NDJSON.
+ * Данные читаются потоково и обрабатываются пачками: проверка строк, одна проверка занятости email
+ * на пачку, параллельное хэширование паролей и вставка пачки в отдельной транзакции с JDBC-батчингом
+ * (ID выдаются пулом последовательности, поэтому Hibernate не отключает батчинг вставок).
+ */
+@Service
+public class UserImportServiceImp implements UserImportService {
+
+    // Логгер для отслеживания импорта.
+    private static final Logger logger = LoggerFactory.getLogger(UserImportServiceImp.class);
+
+    // BCrypt учитывает только первые 72 байта пароля
+    private static final int MAX_PASSWORD_BYTES = 72;
+
+    private final UserRepository userRepository;
+    private final RoleService roleService;
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EmailBloomFilter emailBloomFilter;
+    private final UserTableVersion userTableVersion;
+    private final UserSearchIndex userSearchIndex;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userRepository Репозиторий пользователей.
+     * @param roleService Сервис ролей.
+     * @param passwordEncoder Шифровщик паролей (для пула берется шифровщик без пула логинов).
+     * @param hashingExecutor Пул потоков хэширования для импорта.
+     * @param transactionManager Менеджер транзакций.
+     * @param validator Валидатор сущностей.
+     * @param objectMapper Разбор JSON.
+     * @param emailBloomFilter Предфильтр занятых email.
+     * @param userTableVersion Глобальная версия таблицы пользователей.
+     * @param userSearchIndex Поисковый индекс пользователей в памяти.
+     * @param chunkSize Количество строк в одной транзакции.
+     * @param maxErrors Максимальное количество ошибок в отчете.
+     */
+    @Autowired
+    public UserImportServiceImp(UserRepository userRepository, RoleService roleService,
+                                PasswordEncoder passwordEncoder,
+                                @Qualifier("userImportHashingExecutor") ThreadPoolExecutor hashingExecutor,
+                                PlatformTransactionManager transactionManager, Validator validator,
+                                ObjectMapper objectMapper, EmailBloomFilter emailBloomFilter,
+                                UserTableVersion userTableVersion, UserSearchIndex userSearchIndex,
+                                @Value("${app.users.import.chunk-size:1000}") int chunkSize,
+                                @Value("${app.users.import.max-errors:1000}") int maxErrors) {
+        this.userRepository = userRepository;
+        this.roleService = roleService;
+        this.passwordEncoder = passwordEncoder instanceof PooledPasswordEncoder pooled
+                ? pooled.getDelegate() : passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.emailBloomFilter = emailBloomFilter;
+        this.userTableVersion = userTableVersion;
+        this.userSearchIndex = userSearchIndex;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Импортирует пользователей из потока.
+     * @param format Формат входных данных.
+     * @param in Поток с данными.
+     * @return Отчет об импорте.
+     * @throws IOException Если возникает ошибка чтения.
+     */
+    @Override
+    public UserImportReport importUsers(UserFileFormat format, InputStream in) throws IOException {
+        logger.info("Начало импорта пользователей в формате {}", format);
+        long startNanos = System.nanoTime();
+        ImportState state = new ImportState(loadRoles());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == UserFileFormat.CSV) {
+            readCsv(reader, state);
+        } else {
+            readNdjson(reader, state);
+        }
+        flushChunk(state);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double rowsPerSecond = elapsedNanos > 0 ? state.total * 1_000_000_000.0 / elapsedNanos : 0;
+        logger.info("Импорт завершен: строк {}, создано {}, отклонено {}, {} строк/с",
+                state.total, state.imported, state.failed, Math.round(rowsPerSecond));
+        return new UserImportReport(state.total, state.imported, state.failed, elapsedNanos / 1_000_000,
+                rowsPerSecond, state.errors, state.failed > state.errors.size());
+    }
+
+    private void readCsv(BufferedReader reader, ImportState state) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new UserBadRequestException("CSV header must contain column '" + required + "'");
+            }
+        }
+        List<String> record;
+        while ((record = nextRecord(csv, state)) != null) {
+            long line = csv.getRecordLine();
+            String ageValue = column(record, columns, "age");
+            Integer age = null;
+            if (ageValue != null && !ageValue.isBlank()) {
+                try {
+                    age = Integer.valueOf(ageValue.trim());
+                } catch (NumberFormatException e) {
+                    state.total++;
+                    reject(state, line, column(record, columns, "email"), "Age must be a number");
+                    continue;
+                }
+            }
+            String roles = column(record, columns, "roles");
+            UserImportRow row = new UserImportRow(column(record, columns, "name"), column(record, columns, "lastname"),
+                    age, column(record, columns, "email"), column(record, columns, "password"),
+                    roles == null || roles.isBlank() ? List.of() : Arrays.asList(roles.trim().split("[\\s|;]+")));
+            accept(state, line, row);
+        }
+    }
+
+    // Незакрытая кавычка поглощает остаток данных: строка отклоняется, чтение прекращается
+    private List<String> nextRecord(CsvReader csv, ImportState state) throws IOException {
+        try {
+            return csv.next();
+        } catch (CsvReader.MalformedCsvException e) {
+            state.total++;
+            reject(state, csv.getRecordLine(), null, e.getMessage());
+            return null;
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportState state) throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            UserImportRow row;
+            try {
+                row = objectMapper.readValue(text, UserImportRow.class);
+            } catch (JsonProcessingException e) {
+                state.total++;
+                reject(state, line, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            accept(state, line, row);
+        }
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    // Проверяет строку и добавляет ее в текущую пачку
+    private void accept(ImportState state, long line, UserImportRow row) {
+        state.total++;
+        String email = row.email() == null ? null : row.email().trim();
+        if (row.password() == null || row.password().isBlank()) {
+            reject(state, line, email, "Password must not be empty");
+            return;
+        }
+        if (row.password().getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            reject(state, line, email, "Password must be at most " + MAX_PASSWORD_BYTES + " bytes");
+            return;
+        }
+        Set<Role> roles = new HashSet<>();
+        List<String> roleNames = row.roles() == null || row.roles().isEmpty()
+                ? List.of(RoleAuthorities.ROLE_USER.getAuthority()) : row.roles();
+        for (String roleName : roleNames) {
+            Role role = state.rolesByName.get(roleName.trim().toUpperCase(Locale.ROOT));
+            if (role == null) {
+                reject(state, line, email, "Unknown role: " + roleName);
+                return;
+            }
+            roles.add(role);
+        }
+
+        User user = new User();
+        user.setName(row.name() == null ? null : row.name().trim());
+        user.setLastname(row.lastname() == null ? null : row.lastname().trim());
+        user.setAge(row.age() == null ? 0 : row.age());
+        user.setEmail(email);
+        user.setRole(roles);
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            StringBuilder message = new StringBuilder();
+            for (ConstraintViolation<User> violation : violations) {
+                if (!message.isEmpty()) {
+                    message.append("; ");
+                }
+                message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+            }
+            reject(state, line, email, message.toString());
+            return;
+        }
+        if (!state.seenEmails.add(email.toLowerCase(Locale.ROOT))) {
+            reject(state, line, email, "Duplicate email in import");
+            return;
+        }
+        state.chunk.add(new PendingUser(line, user, row.password()));
+        if (state.chunk.size() >= chunkSize) {
+            flushChunk(state);
+        }
+    }
+
+    // Сохраняет текущую пачку: проверка занятости email, параллельное хэширование, батч-вставка
+    private void flushChunk(ImportState state) {
+        if (state.chunk.isEmpty()) {
+            return;
+        }
+        List<PendingUser> pending = state.chunk;
+        state.chunk = new ArrayList<>(chunkSize);
+
+        List<String> emails = new ArrayList<>(pending.size());
+        for (PendingUser item : pending) {
+            emails.add(item.user().getEmail());
+        }
+        Set<String> taken = new HashSet<>();
+        for (String email : userRepository.findExistingEmails(emails)) {
+            taken.add(email.toLowerCase(Locale.ROOT));
+        }
+
+        List<PendingUser> accepted = new ArrayList<>(pending.size());
+        List<CompletableFuture<String>> hashes = new ArrayList<>(pending.size());
+        for (PendingUser item : pending) {
+            if (taken.contains(item.user().getEmail().toLowerCase(Locale.ROOT))) {
+                reject(state, item.line(), item.user().getEmail(), "Email already taken");
+                continue;
+            }
+            accepted.add(item);
+            hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(item.rawPassword()), hashingExecutor));
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            User user = accepted.get(i).user();
+            user.setPassword(hashes.get(i).join());
+            users.add(user);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Вставки отправляются до увеличения версии: слот блокируется последним
+                userRepository.saveAllAndFlush(users);
+                userTableVersion.increment();
+            });
+        } catch (RuntimeException e) {
+            // Пачка откатывается целиком (например, email заняли параллельно): строки помечаются как ошибочные
+            String message = "Batch insert failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.error("Ошибка вставки пачки из {} пользователей: {}", users.size(), message);
+            for (PendingUser item : accepted) {
+                reject(state, item.line(), item.user().getEmail(), message);
+            }
+            return;
+        }
+        for (User user : users) {
+            emailBloomFilter.put(user.getEmail());
+            userSearchIndex.put(user.getId(), user.getEmail(), user.getName(), user.getLastname());
+        }
+        state.imported += users.size();
+        logger.debug("Сохранена пачка из {} пользователей, всего создано {}", users.size(), state.imported);
+    }
+
+    private void reject(ImportState state, long line, String email, String message) {
+        state.failed++;
+        if (state.errors.size() < maxErrors) {
+            state.errors.add(new UserImportError(line, email, message));
+        }
+    }
+
+    // Роли по имени с префиксом ROLE_ и без него: ROLE_ADMIN и ADMIN
+    private Map<String, Role> loadRoles() {
+        Map<String, Role> rolesByName = new HashMap<>();
+        for (Role role : roleService.findAll()) {
+            String name = role.getRoleName().toUpperCase(Locale.ROOT);
+            rolesByName.put(name, role);
+            if (name.startsWith("ROLE_")) {
+                rolesByName.put(name.substring("ROLE_".length()), role);
+            }
+        }
+        return rolesByName;
+    }
+
+    private record PendingUser(long line, User user, String rawPassword) {
+    }
+
+    // Изменяемое состояние одного импорта (используется только вызывающим потоком)
+    private final class ImportState {
+        private final Map<String, Role> rolesByName;
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<UserImportError> errors = new ArrayList<>();
+        private List<PendingUser> chunk = new ArrayList<>(chunkSize);
+        private long total;
+        private long imported;
+        private long failed;
+
+        private ImportState(Map<String, Role> rolesByName) {
+            this.rolesByName = rolesByName;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.util.TransactionCallbacks;
+import ru.kata.spring_boot_security_demo.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Поисковый индекс пользователей в памяти по email, имени и фамилии.
+ * Заполняется из базы после старта (StartupWarmup) и обновляется UserServiceImp и импортом после коммита записи.
+ * Пока индекс не заполнен, isReady возвращает false и поиск выполняется запросом к базе.
+ * Обновления, закоммиченные во время загрузки, откладываются и применяются после нее: иначе потоковое
+ * чтение перезаписало бы их устаревшими строками.
+ */
+@Component
+public class UserSearchIndex {
+
+    // Логгер для отслеживания загрузки индекса.
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private final UserRepository userRepository;
+    private final TrigramIndex index = new TrigramIndex();
+    private volatile boolean ready;
+    // Обновления после коммита, отложенные до конца загрузки (null, если загрузка не идет)
+    private List<Runnable> pendingUpdates;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userRepository Репозиторий пользователей.
+     */
+    @Autowired
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Заполняет индекс всеми пользователями потоковым чтением.
+     * Записи, закоммиченные во время загрузки, копятся и применяются после нее в порядке коммитов.
+     */
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pendingUpdates = new ArrayList<>();
+        }
+        try (Stream<UserDto> users = userRepository.streamAllUserDtos()) {
+            users.forEach(user -> index.put(user.id(), user.email(), user.name(), user.lastname()));
+        } finally {
+            applyPendingUpdates();
+        }
+        ready = true;
+        logger.info("Поисковый индекс пользователей заполнен: {} пользователей за {} мс",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Проверяет, заполнен ли индекс.
+     * @return true, если поиск можно выполнять по индексу.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ищет пользователей по префиксу или подстроке email, имени и фамилии.
+     * @param query Запрос (слова через пробел должны совпасть все).
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы найденных пользователей.
+     */
+    public long[] search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    /**
+     * Добавляет или обновляет пользователя после коммита текущей транзакции.
+     * @param id Идентификатор пользователя.
+     * @param email Email.
+     * @param name Имя.
+     * @param lastname Фамилия.
+     */
+    public void put(Long id, String email, String name, String lastname) {
+        TransactionCallbacks.afterCommit(() -> apply(() -> index.put(id, email, name, lastname)));
+    }
+
+    /**
+     * Удаляет пользователя после коммита текущей транзакции.
+     * @param id Идентификатор пользователя.
+     */
+    public void remove(Long id) {
+        TransactionCallbacks.afterCommit(() -> apply(() -> index.remove(id)));
+    }
+
+    /**
+     * Удаляет всех пользователей домена после коммита текущей транзакции (проход по индексу в памяти).
+     * @param domain Домен email без "@".
+     */
+    public void removeByEmailDomain(String domain) {
+        String suffix = "@" + domain.toLowerCase(Locale.ROOT);
+        TransactionCallbacks.afterCommit(() -> apply(() -> {
+            int removed = index.removeIf(fields -> fields[0].endsWith(suffix));
+            logger.debug("Из поискового индекса удалено {} пользователей домена {}", removed, domain);
+        }));
+    }
+
+    // Применяет обновление сразу или откладывает его до конца загрузки
+    private void apply(Runnable update) {
+        synchronized (this) {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+                return;
+            }
+        }
+        update.run();
+    }
+
+    // Применяет отложенные обновления; поступившие за это время обновления тоже встают в очередь,
+    // поэтому порядок сохраняется, пока очередь не опустеет
+    private void applyPendingUpdates() {
+        while (true) {
+            List<Runnable> updates;
+            synchronized (this) {
+                updates = pendingUpdates;
+                if (updates.isEmpty()) {
+                    pendingUpdates = null;
+                    return;
+                }
+                pendingUpdates = new ArrayList<>();
+            }
+            logger.debug("Применяются {} обновлений поискового индекса, закоммиченных во время загрузки", updates.size());
+            updates.forEach(Runnable::run);
+        }
+    }
+}
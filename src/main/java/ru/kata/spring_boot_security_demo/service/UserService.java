@@ -1,6 +1,14 @@
 package ru.kata.spring_boot_security_demo.service;
 
 import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.dto.BulkOperationResult;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserEditRequest;
+import ru.kata.spring_boot_security_demo.dto.UserFilter;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+import ru.kata.spring_boot_security_demo.dto.UserSelector;
+import ru.kata.spring_boot_security_demo.dto.UserSlice;
+import ru.kata.spring_boot_security_demo.dto.VersionedUser;
 import ru.kata.spring_boot_security_demo.models.User;
 
 import java.util.List;
@@ -9,24 +17,65 @@ import java.util.List;
 public interface UserService {
 
     /**
-     * Возвращает список всех пользователей.
-     * @return Список пользователей.
+     * Возвращает страницу пользователей, упорядоченных по ID.
+     * @param cursor Курсор из предыдущей страницы или null для первой страницы.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с курсором на следующую.
      */
-    List<User> getAllUsers();
+    UserPage getUsersPage(String cursor, Integer size);
 
     /**
-     * Находит пользователя по ID.
+     * Возвращает страницу пользователей, отфильтрованных и отсортированных на стороне базы данных.
+     * @param filter Условия фильтрации.
+     * @param sort Сортировка вида "поле" или "поле,desc".
+     * @param page Номер страницы с 0 или null для первой.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей.
+     */
+    UserSlice filterUsers(UserFilter filter, String sort, Integer page, Integer size);
+
+    /**
+     * Ищет пользователей по префиксу или подстроке email, имени и фамилии.
+     * @param query Запрос.
+     * @param limit Максимальное количество результатов или null для значения по умолчанию.
+     * @return Найденные пользователи с ролями.
+     */
+    List<UserDto> search(String query, Integer limit);
+
+    /**
+     * Возвращает текущую версию таблицы пользователей (меняется в транзакции каждой записи).
+     * @return Версия таблицы для ETag списка.
+     */
+    String getUsersVersion();
+
+    /**
+     * Возвращает данные пользователя с ролями для отображения (без пароля).
      * @param id Идентификатор пользователя.
-     * @return Пользователь.
+     * @return Проекция пользователя.
      */
-    User getUser(Long id);
+    UserDto getUserDto(Long id);
 
     /**
-     * Находит пользователя по ID с подгруженными ролями.
+     * Возвращает данные пользователя с ролями и версию строки для заголовка ETag.
      * @param id Идентификатор пользователя.
-     * @return Пользователь с ролями.
+     * @return Проекция пользователя с версией.
+     */
+    VersionedUser getVersionedUser(Long id);
+
+    /**
+     * Возвращает текущую версию пользователя.
+     * @param id Идентификатор пользователя.
+     * @return Версия строки пользователя.
+     */
+    long getUserVersion(Long id);
+
+    /**
+     * Обновляет пользователя одним версионированным UPDATE.
+     * @param request Новые данные пользователя.
+     * @param expectedVersion Ожидаемая версия (из If-Match) или null для безусловного обновления.
+     * @return Новая версия пользователя.
      */
-    User getUserWithRoles(Long id);
+    long update(UserEditRequest request, Long expectedVersion);
 
     /**
      * Удаляет пользователя по ID.
@@ -34,6 +83,29 @@ public interface UserService {
      */
     void deleteUser(Long id);
 
+    /**
+     * Удаляет выбранных пользователей набором set-based запросов.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных пользователей и связей с ролями.
+     */
+    BulkOperationResult deleteUsers(UserSelector selector);
+
+    /**
+     * Назначает роль выбранным пользователям одним INSERT ... SELECT.
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество добавленных связей с ролью.
+     */
+    BulkOperationResult assignRole(Long roleId, UserSelector selector);
+
+    /**
+     * Отзывает роль у выбранных пользователей одним DELETE.
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных связей с ролью.
+     */
+    BulkOperationResult revokeRole(Long roleId, UserSelector selector);
+
     /**
      * Добавляет нового пользователя.
      * @param user Пользователь для добавления.
@@ -45,4 +117,11 @@ public interface UserService {
      * @param user Пользователь с обновленными данными.
      */
     void edit(User user);
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, занят ли email.
+     * @param email Email для проверки.
+     * @return true, если пользователь с таким email уже существует.
+     */
+    boolean isEmailTaken(String email);
+}
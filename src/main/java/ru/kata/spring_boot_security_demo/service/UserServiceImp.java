@@ -4,18 +4,41 @@ import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring_boot_security_demo.dto.BulkOperationResult;
+import ru.kata.spring_boot_security_demo.dto.RoleDto;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.dto.UserEditRequest;
+import ru.kata.spring_boot_security_demo.dto.UserFilter;
+import ru.kata.spring_boot_security_demo.dto.UserPage;
+import ru.kata.spring_boot_security_demo.dto.UserRoleJoinRow;
+import ru.kata.spring_boot_security_demo.dto.UserRoleRow;
+import ru.kata.spring_boot_security_demo.dto.UserSelector;
+import ru.kata.spring_boot_security_demo.dto.UserSlice;
+import ru.kata.spring_boot_security_demo.dto.VersionedUser;
 import ru.kata.spring_boot_security_demo.models.Role;
 import ru.kata.spring_boot_security_demo.models.User;
-import ru.kata.spring_boot_security_demo.repositories.RoleRepository;
 import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.repositories.UserSpecifications;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+import ru.kata.spring_boot_security_demo.util.UserNotCreatedException;
 import ru.kata.spring_boot_security_demo.util.UserNotFoundException;
+import ru.kata.spring_boot_security_demo.util.UserPageCursor;
+import ru.kata.spring_boot_security_demo.util.UserVersionConflictException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -24,70 +47,302 @@ public class UserServiceImp implements UserService {
 
     // Логгер для отслеживания операций в сервисе.
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImp.class);
+    private static final List<String> SORTABLE_PROPERTIES = List.of("id", "name", "lastname", "age", "email");
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final RoleRepository roleRepository;
+    private final RoleService roleService;
+    private final UserDetailsCache userDetailsCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final UserTableVersion userTableVersion;
+    private final UserSearchIndex userSearchIndex;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxBulkIds;
+    private final int defaultSearchLimit;
+    private final int maxSearchLimit;
+    private final int maxFilterOffset;
 
     /**
      * Конструктор для инъекции зависимостей.
      * @param userRepository Репозиторий пользователей.
      * @param passwordEncoder Шифровщик паролей.
-     * @param roleRepository Репозиторий ролей.
+     * @param roleService Сервис ролей (реестр в памяти).
+     * @param userDetailsCache Кэш загруженных пользователей.
+     * @param emailBloomFilter Предфильтр занятых email.
+     * @param userTableVersion Глобальная версия таблицы пользователей.
+     * @param userSearchIndex Поисковый индекс пользователей в памяти.
+     * @param defaultPageSize Размер страницы пользователей по умолчанию.
+     * @param maxPageSize Максимальный размер страницы пользователей.
+     * @param maxBulkIds Максимальное количество ID в одной массовой операции.
+     * @param defaultSearchLimit Количество результатов поиска по умолчанию.
+     * @param maxSearchLimit Максимальное количество результатов поиска.
+     * @param maxFilterOffset Максимальное смещение страницы при фильтрации.
      */
     @Autowired
-    public UserServiceImp(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleRepository roleRepository) {
+    public UserServiceImp(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleService roleService,
+                          UserDetailsCache userDetailsCache, EmailBloomFilter emailBloomFilter,
+                          UserTableVersion userTableVersion, UserSearchIndex userSearchIndex,
+                          @Value("${app.users.page.default-size:50}") int defaultPageSize,
+                          @Value("${app.users.page.max-size:500}") int maxPageSize,
+                          @Value("${app.users.bulk.max-ids:10000}") int maxBulkIds,
+                          @Value("${app.users.search.default-limit:20}") int defaultSearchLimit,
+                          @Value("${app.users.search.max-limit:100}") int maxSearchLimit,
+                          @Value("${app.users.filter.max-offset:10000}") int maxFilterOffset) {
         logger.info("Инициализация UserServiceImp");
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.roleRepository = roleRepository;
+        this.roleService = roleService;
+        this.userDetailsCache = userDetailsCache;
+        this.emailBloomFilter = emailBloomFilter;
+        this.userTableVersion = userTableVersion;
+        this.userSearchIndex = userSearchIndex;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBulkIds = maxBulkIds;
+        this.defaultSearchLimit = defaultSearchLimit;
+        this.maxSearchLimit = maxSearchLimit;
+        this.maxFilterOffset = maxFilterOffset;
+    }
+    /**
+     * Возвращает страницу пользователей, упорядоченных по ID (keyset-пагинация).
+     * Страница читается по индексу первичного ключа без OFFSET, роли страницы - одним
+     * дополнительным запросом по списку ID вместо DISTINCT-соединения.
+     * @param cursor Курсор из предыдущей страницы или null для первой страницы.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с курсором на следующую.
+     * @throws UserBadRequestException Если курсор поврежден или размер страницы вне допустимых границ.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new UserBadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        long afterId = UserPageCursor.decode(cursor);
+        logger.info("Запрос страницы пользователей после ID {} размером {}", afterId, pageSize);
+        // Запрашивается на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<UserDto> rows = userRepository.findPageAfter(afterId, Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<UserDto> page = hasNext ? rows.subList(0, pageSize) : rows;
+        if (page.isEmpty()) {
+            return new UserPage(List.of(), null);
+        }
+
+        List<UserDto> items = withRoles(page);
+        String nextCursor = hasNext ? UserPageCursor.encode(page.get(page.size() - 1).id()) : null;
+        logger.debug("Возвращено пользователей: {}, есть следующая страница: {}", items.size(), hasNext);
+        return new UserPage(items, nextCursor);
+    }
+
+    /**
+     * Возвращает страницу пользователей, отфильтрованных и отсортированных на стороне базы данных.
+     * Условия собираются из UserSpecifications в один запрос с DTO-проекцией; каждое условие
+     * использует свой индекс. Общее количество не считается: запрашивается на одну строку больше.
+     * @param filter Условия фильтрации.
+     * @param sort Сортировка вида "поле" или "поле,desc" (id, name, lastname, age, email).
+     * @param page Номер страницы с 0 или null для первой.
+     * @param size Размер страницы или null для размера по умолчанию.
+     * @return Страница пользователей с ролями.
+     * @throws UserBadRequestException Если параметры фильтра, сортировки или страницы некорректны.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSlice filterUsers(UserFilter filter, String sort, Integer page, Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        int pageNumber = page == null ? 0 : page;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new UserBadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        if (pageNumber < 0 || (long) pageNumber * pageSize > maxFilterOffset) {
+            throw new UserBadRequestException("Page offset must be between 0 and " + maxFilterOffset
+                    + ", narrow the filter instead");
+        }
+        Specification<User> specification = toSpecification(filter);
+        Sort order = toSort(sort);
+        logger.info("Фильтрация пользователей: {}, сортировка {}, страница {}", filter, order, pageNumber);
+        List<UserDto> rows = userRepository.findDtos(specification, order, pageNumber * pageSize, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<UserDto> items = withRoles(hasNext ? rows.subList(0, pageSize) : rows);
+        return new UserSlice(items, pageNumber, pageSize, hasNext);
+    }
+
+    /**
+     * Ищет пользователей по префиксу или подстроке email, имени и фамилии.
+     * Совпадения находятся в индексе в памяти без просмотра таблицы; данные найденных пользователей
+     * читаются по первичному ключу, поэтому в ответ не попадают уже удаленные пользователи.
+     * @param query Запрос (несколько слов должны совпасть все).
+     * @param limit Максимальное количество результатов или null для значения по умолчанию.
+     * @return Найденные пользователи с ролями в порядке индекса.
+     * @throws UserBadRequestException Если запрос пуст или лимит вне допустимых границ.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> search(String query, Integer limit) {
+        int maxResults = limit == null ? defaultSearchLimit : limit;
+        if (maxResults < 1 || maxResults > maxSearchLimit) {
+            throw new UserBadRequestException("Limit must be between 1 and " + maxSearchLimit);
+        }
+        if (query == null || query.isBlank() || query.length() > 100) {
+            throw new UserBadRequestException("Query must be 1 to 100 characters");
+        }
+        List<Long> ids;
+        if (userSearchIndex.isReady()) {
+            long[] found = userSearchIndex.search(query, maxResults);
+            ids = new ArrayList<>(found.length);
+            for (long id : found) {
+                ids.add(id);
+            }
+        } else {
+            logger.warn("Поисковый индекс еще не заполнен, поиск '{}' выполняется запросом к базе", query);
+            String escaped = query.trim().toLowerCase(Locale.ROOT)
+                    .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            ids = userRepository.findIdsLike("%" + escaped + "%", Limit.of(maxResults));
+        }
+        logger.info("Поиск пользователей '{}': найдено {}", query, ids.size());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserDto> usersById = new HashMap<>();
+        for (UserDto user : userRepository.findDtosByIds(ids)) {
+            usersById.put(user.id(), user);
+        }
+        List<UserDto> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserDto user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return withRoles(users);
+    }
+
+    /**
+     * Возвращает текущую версию таблицы пользователей для ETag списка.
+     * В общей транзакции со страницей читается из того же источника, что и данные страницы.
+     * @return Версия таблицы.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getUsersVersion() {
+        return userTableVersion.current();
     }
+
     /**
-     * Возвращает список всех пользователей с ролями.
-     * @return Список пользователей.
+     * Возвращает данные пользователя с ролями для отображения.
+     * @param id Идентификатор пользователя.
+     * @return Проекция пользователя.
+     * @throws UserNotFoundException Если пользователь не найден.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<User> getAllUsers() {
-        logger.info("Запрос списка всех пользователей");
-        List<User> users = userRepository.findAllWithRoles();
-        logger.debug("Найдено пользователей: {}", users.size());
-        return users;
+    public UserDto getUserDto(Long id) {
+        return getVersionedUser(id).user();
     }
 
     /**
-     * Находит пользователя по ID.
+     * Возвращает данные пользователя с ролями и версию строки, прочитанные одним запросом.
+     * Читается DTO-проекция: сущности не попадают в контекст персистентности и не проверяются на изменения.
      * @param id Идентификатор пользователя.
-     * @return Пользователь.
+     * @return Проекция пользователя с версией.
      * @throws UserNotFoundException Если пользователь не найден.
      */
     @Override
     @Transactional(readOnly = true)
-    public User getUser(Long id) {
-        logger.info("Поиск пользователя с ID: {}", id);
-        Optional<User> user = userRepository.findById(id);
-        User foundUser = user.orElseThrow(()-> {
+    public VersionedUser getVersionedUser(Long id) {
+        logger.info("Поиск пользователя с ролями по ID: {}", id);
+        List<UserRoleJoinRow> rows = userRepository.findUserRowsById(id);
+        if (rows.isEmpty()) {
             logger.error("Пользователь с ID {} не найден", id);
-            return new UserNotFoundException();
-        });
-        logger.debug("Пользователь найден: {}", foundUser.getEmail());
-        return foundUser;
+            throw new UserNotFoundException();
+        }
+        List<RoleDto> roles = new ArrayList<>(rows.size());
+        for (UserRoleJoinRow row : rows) {
+            if (row.roleId() != null) {
+                roles.add(new RoleDto(row.roleId(), row.roleName()));
+            }
+        }
+        UserRoleJoinRow first = rows.get(0);
+        logger.debug("Пользователь с ролями найден: {}", first.email());
+        UserDto user = new UserDto(first.id(), first.name(), first.lastname(), first.age(), first.email(), roles);
+        return new VersionedUser(user, first.version());
     }
 
     /**
-     * Находит пользователя по ID с подгруженными ролями.
+     * Возвращает текущую версию пользователя (для проверки If-None-Match без чтения данных).
      * @param id Идентификатор пользователя.
-     * @return Пользователь с ролями.
+     * @return Версия строки пользователя.
+     * @throws UserNotFoundException Если пользователь не найден.
      */
     @Override
     @Transactional(readOnly = true)
-    public User getUserWithRoles(Long id) {
-        logger.info("Поиск пользователя с ролями по ID: {}", id);
-        User user = userRepository.getUserWithRoles(id);
-        logger.debug("Пользователь с ролями найден: {}", user.getEmail());
-        return user;
+    public long getUserVersion(Long id) {
+        return userRepository.findVersionById(id).orElseThrow(() -> {
+            logger.error("Пользователь с ID {} не найден", id);
+            return new UserNotFoundException();
+        });
+    }
+
+    /**
+     * Обновляет пользователя, если его версия совпадает с ожидаемой.
+     * Строка users меняется одним версионированным UPDATE без предварительного SELECT; при несовпадении
+     * версии роли не трогаются. Роли (если переданы) заменяются удалением и одним INSERT ... SELECT.
+     * @param request Новые данные пользователя.
+     * @param expectedVersion Ожидаемая версия или null для безусловного обновления.
+     * @return Новая версия пользователя.
+     * @throws UserNotFoundException Если пользователь не найден.
+     * @throws UserVersionConflictException Если версия пользователя не совпала с ожидаемой.
+     * @throws UserBadRequestException Если роль не найдена или email занят.
+     */
+    @Override
+    @Transactional
+    public long update(UserEditRequest request, Long expectedVersion) {
+        Long id = request.id();
+        logger.info("Обновление пользователя с ID {} (ожидаемая версия {})", id, expectedVersion);
+        List<Long> roleIds = null;
+        if (request.role() != null) {
+            roleIds = new ArrayList<>(request.role().size());
+            for (RoleDto role : request.role()) {
+                requireRole(role.id());
+                roleIds.add(role.id());
+            }
+        }
+        // Пустой пароль означает "не менять": null оставляет текущий хэш (COALESCE в запросе)
+        String passwordHash = request.password() == null || request.password().isBlank()
+                ? null : passwordEncoder.encode(request.password());
+
+        int updated;
+        try {
+            updated = userRepository.updateIfVersionMatches(id, expectedVersion, request.name(), request.lastname(),
+                    request.age(), request.email(), User.emailDomainOf(request.email()), passwordHash);
+        } catch (DataIntegrityViolationException e) {
+            throw new UserBadRequestException("Email already taken: " + request.email());
+        }
+        if (updated == 0) {
+            long currentVersion = getUserVersion(id);
+            logger.warn("Версия пользователя {} изменилась: ожидалась {}, текущая {}", id, expectedVersion, currentVersion);
+            throw new UserVersionConflictException(currentVersion);
+        }
+        if (roleIds != null) {
+            userRepository.deleteRoleLinksByUserIds(List.of(id));
+            if (!roleIds.isEmpty()) {
+                userRepository.insertRoleLinks(id, roleIds);
+            }
+        }
+        // Сбрасывает запись по ID (старый email) и по новому email
+        userDetailsCache.evict(id, request.email());
+        emailBloomFilter.put(request.email());
+        userSearchIndex.put(id, request.email(), request.name(), request.lastname());
+        userTableVersion.increment();
+        long newVersion = expectedVersion != null ? expectedVersion + 1 : getUserVersion(id);
+        logger.debug("Пользователь {} обновлен, новая версия {}", id, newVersion);
+        return newVersion;
     }
+
     /**
      * Удаляет пользователя по ID.
+     * Связи с ролями и сам пользователь удаляются запросами по ID, без предварительной загрузки сущности.
+     * Строка users блокируется первой, как при обновлении, чтобы параллельные записи не попадали во взаимоблокировку.
      * @param id Идентификатор пользователя.
      * @throws UserNotFoundException Если пользователь не найден.
      */
@@ -95,18 +350,113 @@ public class UserServiceImp implements UserService {
     @Transactional
     public void deleteUser(Long id) {
         logger.info("Удаление пользователя с ID: {}", id);
-        Optional<User> user = userRepository.findById(id);
-        if (user.isEmpty()) {
+        List<Long> ids = List.of(id);
+        if (userRepository.incrementVersionByIds(ids) == 0) {
             logger.error("Пользователь с ID {} не найден для удаления", id);
             throw new UserNotFoundException();
         }
-        userRepository.deleteById(id);
+        userRepository.deleteRoleLinksByUserIds(ids);
+        userRepository.deleteUsersByIds(ids);
+        userDetailsCache.evict(id, null);
+        userSearchIndex.remove(id);
+        userTableVersion.increment();
         logger.debug("Пользователь с ID {} успешно удален", id);
     }
 
+    /**
+     * Удаляет выбранных пользователей: строки users блокируются увеличением версии, затем удаляются связи
+     * с ролями и сами строки users, по одному запросу на шаг.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных пользователей и связей с ролями.
+     * @throws UserBadRequestException Если выбор пуст или задан неоднозначно.
+     */
+    @Override
+    @Transactional
+    public BulkOperationResult deleteUsers(UserSelector selector) {
+        String domain = emailDomain(selector);
+        int roleLinks;
+        int users;
+        if (domain != null) {
+            logger.info("Массовое удаление пользователей домена {}", domain);
+            userRepository.incrementVersionByEmailDomain(domain);
+            roleLinks = userRepository.deleteRoleLinksByEmailDomain(domain);
+            users = userRepository.deleteUsersByEmailDomain(domain);
+            userSearchIndex.removeByEmailDomain(domain);
+        } else {
+            logger.info("Массовое удаление {} пользователей по ID", selector.ids().size());
+            userRepository.incrementVersionByIds(selector.ids());
+            roleLinks = userRepository.deleteRoleLinksByUserIds(selector.ids());
+            users = userRepository.deleteUsersByIds(selector.ids());
+            selector.ids().forEach(userSearchIndex::remove);
+        }
+        userDetailsCache.evictAll();
+        if (users > 0 || roleLinks > 0) {
+            userTableVersion.increment();
+        }
+        logger.info("Удалено пользователей: {}, связей с ролями: {}", users, roleLinks);
+        return new BulkOperationResult(users, roleLinks);
+    }
+
+    /**
+     * Назначает роль выбранным пользователям.
+     * Роли входят в представление пользователя, поэтому у получивших роль увеличивается версия. Как и в update,
+     * сначала меняются строки users, затем users_roles, последней - версия таблицы: при одинаковом порядке
+     * блокировок параллельные PUT и массовые операции не попадают во взаимоблокировку.
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество добавленных связей с ролью.
+     * @throws UserBadRequestException Если роль не найдена или выбор пуст.
+     */
+    @Override
+    @Transactional
+    public BulkOperationResult assignRole(Long roleId, UserSelector selector) {
+        String domain = emailDomain(selector);
+        requireRole(roleId);
+        // Сначала версия (и блокировка строк users) только у тех, кому роль добавится, затем связи
+        int changed = domain != null
+                ? userRepository.incrementVersionWithoutRoleByEmailDomain(roleId, domain)
+                : userRepository.incrementVersionWithoutRoleByIds(roleId, selector.ids());
+        int roleLinks = changed == 0 ? 0 : domain != null
+                ? userRepository.assignRoleByEmailDomain(roleId, domain)
+                : userRepository.assignRoleByUserIds(roleId, selector.ids());
+        if (roleLinks > 0) {
+            userTableVersion.increment();
+        }
+        userDetailsCache.evictAll();
+        logger.info("Роль {} назначена, добавлено связей: {}", roleId, roleLinks);
+        return new BulkOperationResult(0, roleLinks);
+    }
+
+    /**
+     * Отзывает роль у выбранных пользователей (порядок блокировок как в assignRole).
+     * @param roleId Идентификатор роли.
+     * @param selector Выбор пользователей.
+     * @return Количество удаленных связей с ролью.
+     * @throws UserBadRequestException Если роль не найдена или выбор пуст.
+     */
+    @Override
+    @Transactional
+    public BulkOperationResult revokeRole(Long roleId, UserSelector selector) {
+        String domain = emailDomain(selector);
+        requireRole(roleId);
+        int changed = domain != null
+                ? userRepository.incrementVersionWithRoleByEmailDomain(roleId, domain)
+                : userRepository.incrementVersionWithRoleByIds(roleId, selector.ids());
+        int roleLinks = changed == 0 ? 0 : domain != null
+                ? userRepository.revokeRoleByEmailDomain(roleId, domain)
+                : userRepository.revokeRoleByUserIds(roleId, selector.ids());
+        if (roleLinks > 0) {
+            userTableVersion.increment();
+        }
+        userDetailsCache.evictAll();
+        logger.info("Роль {} отозвана, удалено связей: {}", roleId, roleLinks);
+        return new BulkOperationResult(0, roleLinks);
+    }
+
     /**
      * Добавляет нового пользователя.
      * @param user Пользователь для добавления.
+     * @throws UserNotCreatedException Если email уже занят.
      */
     @Override
     @Transactional
@@ -114,7 +464,7 @@ public class UserServiceImp implements UserService {
         logger.info("Добавление нового пользователя: {}", user.getEmail());
         Set<Role> roles = new HashSet<>();
         for (Role role : user.getRole()) {
-            Optional<Role> foundRole = roleRepository.findById(role.getId());
+            Optional<Role> foundRole = roleService.findById(role.getId());
             if (foundRole.isPresent()) {
                 roles.add(foundRole.get());
                 logger.debug("Добавлена роль {} для пользователя {}", foundRole.get().getRoleName(), user.getEmail());
@@ -125,7 +475,17 @@ public class UserServiceImp implements UserService {
         }
         user.setRole(roles);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
+        try {
+            // Flush внутри метода: нарушение уникального email проявляется здесь, а не при коммите
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Email {} уже занят", user.getEmail());
+            throw new UserNotCreatedException("Email already taken: " + user.getEmail());
+        }
+        userDetailsCache.evict(user.getId(), user.getEmail());
+        emailBloomFilter.put(user.getEmail());
+        userSearchIndex.put(user.getId(), user.getEmail(), user.getName(), user.getLastname());
+        userTableVersion.increment();
         logger.debug("Пользователь успешно добавлен: {}", user.getEmail());
     }
 
@@ -133,6 +493,7 @@ public class UserServiceImp implements UserService {
      * Редактирует существующего пользователя.
      * @param user Пользователь с обновленными данными.
      * @throws EntityNotFoundException Если пользователь не найден.
+     * @throws UserBadRequestException Если email уже занят другим пользователем.
      */
     @Override
     @Transactional
@@ -147,13 +508,142 @@ public class UserServiceImp implements UserService {
             logger.error("Пользователь с ID {} не найден для редактирования", user.getId());
             throw new EntityNotFoundException("User not found");
         }
-        // Проверяет, если пароль совпадает с текущим - сохраняет, если нет - шифрует
+        // Пустой пароль означает "не менять"; если пароль совпадает с текущим - сохраняет, если нет - шифрует
         String currentPassword = existingUser.get().getPassword();
-        if (!user.getPassword().equals(currentPassword)) {
+        if (user.getPassword() == null || user.getPassword().isBlank()) {
+            user.setPassword(currentPassword);
+        } else if (!user.getPassword().equals(currentPassword)) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
             logger.debug("Пароль пользователя {} обновлен", user.getEmail());
         }
-        userRepository.save(user);
+        // Форма страницы администратора не передает версию: изменение применяется поверх текущей
+        user.setVersion(existingUser.get().getVersion());
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Email {} уже занят", user.getEmail());
+            throw new UserBadRequestException("Email already taken: " + user.getEmail());
+        }
+        // Сбрасывает запись по ID (старый email) и по новому email
+        userDetailsCache.evict(user.getId(), user.getEmail());
+        emailBloomFilter.put(user.getEmail());
+        userSearchIndex.put(user.getId(), user.getEmail(), user.getName(), user.getLastname());
+        userTableVersion.increment();
         logger.debug("Пользователь успешно отредактирован: {}", user.getEmail());
     }
+
+    /**
+     * Проверяет, занят ли email.
+     * Если предфильтр включен (app.users.email-filter.enabled) и гарантирует, что email свободен,
+     * база не запрашивается; иначе выполняется запрос существования по индексу email.
+     * Проверка не атомарна с записью: одновременную вставку того же email отклоняет уникальный
+     * индекс, и addNewUser/edit сообщают о занятом email.
+     * @param email Email для проверки.
+     * @return true, если пользователь с таким email уже существует.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isEmailTaken(String email) {
+        if (!emailBloomFilter.mightContain(email)) {
+            logger.debug("Email {} свободен (по предфильтру)", email);
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    private Specification<User> toSpecification(UserFilter filter) {
+        Specification<User> specification = Specification.where(null);
+        if (filter == null) {
+            return specification;
+        }
+        if (filter.minAge() != null || filter.maxAge() != null) {
+            if (filter.minAge() != null && filter.maxAge() != null && filter.minAge() > filter.maxAge()) {
+                throw new UserBadRequestException("minAge must not exceed maxAge");
+            }
+            specification = specification.and(UserSpecifications.ageBetween(filter.minAge(), filter.maxAge()));
+        }
+        if (filter.roleId() != null) {
+            requireRole(filter.roleId());
+            specification = specification.and(UserSpecifications.hasRole(filter.roleId()));
+        }
+        if (filter.lastnamePrefix() != null && !filter.lastnamePrefix().isBlank()) {
+            specification = specification.and(UserSpecifications.lastnameStartsWith(filter.lastnamePrefix().trim()));
+        }
+        if (filter.emailDomain() != null && !filter.emailDomain().isBlank()) {
+            String domain = filter.emailDomain().trim();
+            domain = domain.startsWith("@") ? domain.substring(1) : domain;
+            specification = specification.and(UserSpecifications.emailDomain(domain.toLowerCase(Locale.ROOT)));
+        }
+        return specification;
+    }
+
+    // Сортировка только по отображаемым полям; id добавляется последним, чтобы порядок страниц был устойчивым
+    private static Sort toSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("id");
+        }
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (!SORTABLE_PROPERTIES.contains(property) || parts.length > 2) {
+            throw new UserBadRequestException("Sort must be one of " + SORTABLE_PROPERTIES + " with optional ,asc or ,desc");
+        }
+        Sort.Direction direction;
+        try {
+            direction = parts.length == 2 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        } catch (IllegalArgumentException e) {
+            throw new UserBadRequestException("Sort direction must be asc or desc");
+        }
+        Sort order = Sort.by(direction, property);
+        return property.equals("id") ? order : order.and(Sort.by(direction, "id"));
+    }
+
+    // Роли пользователей дочитываются одним запросом по списку ID вместо DISTINCT-соединения
+    private List<UserDto> withRoles(List<UserDto> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        List<Long> ids = new ArrayList<>(users.size());
+        for (UserDto user : users) {
+            ids.add(user.id());
+        }
+        Map<Long, List<RoleDto>> rolesByUser = new HashMap<>();
+        for (UserRoleRow row : userRepository.findRolesByUserIds(ids)) {
+            rolesByUser.computeIfAbsent(row.userId(), id -> new ArrayList<>())
+                    .add(new RoleDto(row.roleId(), row.roleName()));
+        }
+        List<UserDto> result = new ArrayList<>(users.size());
+        for (UserDto user : users) {
+            result.add(user.withRoles(rolesByUser.getOrDefault(user.id(), List.of())));
+        }
+        return result;
+    }
+
+    private void requireRole(Long roleId) {
+        if (roleId == null || roleService.findById(roleId).isEmpty()) {
+            throw new UserBadRequestException("Role not found with id: " + roleId);
+        }
+    }
+
+    /**
+     * Проверяет выбор пользователей и возвращает домен email в нижнем регистре (как в столбце email_domain)
+     * или null для выбора по ID. Пустой выбор запрещен, чтобы случайный запрос не затронул всю таблицу.
+     */
+    private String emailDomain(UserSelector selector) {
+        boolean byIds = selector != null && selector.ids() != null && !selector.ids().isEmpty();
+        boolean byDomain = selector != null && selector.emailDomain() != null && !selector.emailDomain().isBlank();
+        if (byIds == byDomain) {
+            throw new UserBadRequestException("Specify either ids or emailDomain");
+        }
+        if (byIds) {
+            if (selector.ids().size() > maxBulkIds) {
+                throw new UserBadRequestException("At most " + maxBulkIds + " ids per request");
+            }
+            return null;
+        }
+        String domain = User.emailDomainOf("@" + selector.emailDomain().trim().replaceFirst("^@", ""));
+        if (domain == null || domain.isEmpty()) {
+            throw new UserBadRequestException("Specify either ids or emailDomain");
+        }
+        return domain;
+    }
 }
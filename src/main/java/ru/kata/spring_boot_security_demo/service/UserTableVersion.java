@@ -0,0 +1,58 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Глобальная версия таблицы пользователей для условных GET списка (ETag / 304 Not Modified).
+ * Хранится в таблице user_table_version, разбитой на SLOTS строк-слотов: каждая запись в users и users_roles
+ * увеличивает случайный слот в своей транзакции, а версия - сумма слотов. Сумма растет с каждой фиксацией,
+ * ее видят все экземпляры приложения, а изменения в обход сервиса (UserSeeder, импорт) учитываются так же.
+ * Реплика получает слоты вместе с данными, поэтому версия, прочитанная в одной транзакции со страницей,
+ * соответствует ее содержимому. Параллельные записи попадают в один слот редко и почти не ждут друг друга.
+ */
+@Component
+public class UserTableVersion {
+
+    // Логгер для отслеживания изменений версии.
+    private static final Logger logger = LoggerFactory.getLogger(UserTableVersion.class);
+
+    // Совпадает с количеством строк, созданных миграциями V3 и V4
+    private static final int SLOTS = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param jdbcTemplate Шаблон JDBC (использует соединение текущей транзакции).
+     */
+    @Autowired
+    public UserTableVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Возвращает текущую версию в виде значения ETag (без кавычек).
+     * Чтобы ETag соответствовал отданным данным, версию нужно читать в одной транзакции с ними.
+     * @return Текущая версия.
+     */
+    public String current() {
+        return String.valueOf(jdbcTemplate.queryForObject("SELECT SUM(version) FROM user_table_version", Long.class));
+    }
+
+    /**
+     * Увеличивает случайный слот версии в текущей транзакции (или сразу, если транзакции нет).
+     * Вызывается последним изменением транзакции: блокировка слота держится до коммита как можно меньше,
+     * а порядок блокировок users, users_roles, user_table_version одинаков во всех пишущих операциях.
+     */
+    public void increment() {
+        int slot = 1 + ThreadLocalRandom.current().nextInt(SLOTS);
+        jdbcTemplate.update("UPDATE user_table_version SET version = version + 1 WHERE id = ?", slot);
+        logger.debug("Увеличен слот {} версии таблицы пользователей", slot);
+    }
+}
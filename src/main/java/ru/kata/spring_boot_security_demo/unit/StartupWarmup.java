@@ -0,0 +1,74 @@
+package ru.kata.spring_boot_security_demo.unit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import ru.kata.spring_boot_security_demo.service.EmailBloomFilter;
+import ru.kata.spring_boot_security_demo.service.UserSearchIndex;
+
+/**
+ * Заполнение индексов в памяти после старта (EmailBloomFilter и UserSearchIndex).
+ * По умолчанию загрузка идет в фоне, и приложение готово принимать трафик сразу: до заполнения
+ * проверка email и поиск выполняются запросами к базе. С app.startup.async-warmup=false
+ * индексы заполняются до публикации готовности, как раньше.
+ */
+@Component
+public class StartupWarmup {
+
+    // Логгер для отслеживания заполнения индексов.
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final EmailBloomFilter emailBloomFilter;
+    private final UserSearchIndex userSearchIndex;
+    private final AsyncTaskExecutor startupTaskExecutor;
+    private final boolean async;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param emailBloomFilter Предфильтр занятых email.
+     * @param userSearchIndex Поисковый индекс пользователей.
+     * @param startupTaskExecutor Исполнитель задач старта.
+     * @param async Заполнять ли индексы в фоне.
+     */
+    @Autowired
+    public StartupWarmup(EmailBloomFilter emailBloomFilter, UserSearchIndex userSearchIndex,
+                         @Qualifier("startupTaskExecutor") AsyncTaskExecutor startupTaskExecutor,
+                         @Value("${app.startup.async-warmup:true}") boolean async) {
+        this.emailBloomFilter = emailBloomFilter;
+        this.userSearchIndex = userSearchIndex;
+        this.startupTaskExecutor = startupTaskExecutor;
+        this.async = async;
+    }
+
+    /**
+     * Запускает заполнение индексов после старта и заполнения базы (UserSeeder).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!async) {
+            load();
+            return;
+        }
+        logger.info("Индексы пользователей заполняются в фоне");
+        startupTaskExecutor.execute(this::load);
+    }
+
+    private void load() {
+        try {
+            emailBloomFilter.load();
+            userSearchIndex.load();
+        } catch (RuntimeException e) {
+            // Индексы остаются незаполненными: проверки и поиск продолжают работать через базу
+            logger.error("Ошибка заполнения индексов пользователей", e);
+            if (!async) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package ru.kata.spring_boot_security_demo.unit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.service.RoleService;
+import ru.kata.spring_boot_security_demo.service.UserService;
+import ru.kata.spring_boot_security_demo.service.UserTableVersion;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Заполнение базы пользователями после старта (вместо DbInit; роли создаются миграцией).
+ * Создает демонстрационных admin@mail.ru и user@mail.ru, если их нет, и при app.seed.users > 0
+ * (профиль seed) - синтетических пользователей seed1..seedN с распределением ролей, возрастов и доменов.
+ * Синтетические пользователи вставляются многострочными INSERT по app.seed.batch-size строк
+ * в отдельной транзакции на пачку, с одним заранее вычисленным хэшем пароля.
+ * Повторный запуск продолжает с первого отсутствующего пользователя: пачки фиксируются по порядку,
+ * поэтому существующие пользователи образуют префикс seed1..seedK, который находится двоичным поиском.
+ * Диапазон ID для всех недостающих пользователей резервируется в users_seq до первой вставки, поэтому
+ * приложение, обслуживающее запросы во время заполнения, получает идентификаторы за этим диапазоном.
+ * С app.seed.exit=true приложение завершается после заполнения (запуск как команды).
+ */
+@Component
+public class UserSeeder implements ApplicationRunner {
+
+    // Логгер для отслеживания заполнения базы.
+    private static final Logger logger = LoggerFactory.getLogger(UserSeeder.class);
+
+    private static final String[] NAMES = {"ivan", "petr", "anna", "maria", "sergey", "olga", "dmitry", "elena",
+            "alexey", "natalia", "mikhail", "tatiana", "andrey", "irina", "nikolay", "svetlana"};
+    private static final String[] LASTNAMES = {"ivanov", "petrov", "sidorov", "smirnov", "kuznetsov", "popov",
+            "vasiliev", "sokolov", "mikhailov", "novikov", "fedorov", "morozov", "volkov", "alekseev"};
+    // Домены с весами: несколько крупных почтовых сервисов и длинный хвост корпоративных
+    private static final String[] DOMAINS = {"mail.ru", "gmail.com", "yandex.ru", "corp.example", "tenant.example"};
+    private static final int[] DOMAIN_WEIGHTS = {40, 30, 20, 7, 3};
+    // Совпадает с allocationSize генератора users_seq в User
+    private static final int SEQUENCE_ALLOCATION = 50;
+
+    private final UserService userService;
+    private final RoleService roleService;
+    private final UserRepository userRepository;
+    private final UserTableVersion userTableVersion;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfigurableApplicationContext context;
+    private final boolean demoUsers;
+    private final long users;
+    private final int batchSize;
+    private final int adminPercent;
+    private final String password;
+    private final boolean exit;
+
+    /**
+     * Конструктор для инъекции зависимостей.
+     * @param userService Сервис пользователей.
+     * @param roleService Сервис ролей.
+     * @param userRepository Репозиторий пользователей.
+     * @param userTableVersion Глобальная версия таблицы пользователей.
+     * @param passwordEncoder Шифровщик паролей.
+     * @param jdbcTemplate Шаблон JDBC.
+     * @param transactionTemplate Шаблон транзакций.
+     * @param context Контекст приложения (для завершения после заполнения).
+     * @param demoUsers Создавать ли демонстрационных пользователей.
+     * @param users Количество синтетических пользователей (0 - не создавать).
+     * @param batchSize Количество пользователей в одном INSERT и одной транзакции.
+     * @param adminPercent Процент синтетических пользователей с ролью ROLE_ADMIN.
+     * @param password Пароль синтетических пользователей.
+     * @param exit Завершить приложение после заполнения.
+     */
+    @Autowired
+    public UserSeeder(UserService userService, RoleService roleService, UserRepository userRepository,
+                      UserTableVersion userTableVersion, PasswordEncoder passwordEncoder, JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate, ConfigurableApplicationContext context,
+                      @Value("${app.seed.demo-users:true}") boolean demoUsers,
+                      @Value("${app.seed.users:0}") long users,
+                      @Value("${app.seed.batch-size:1000}") int batchSize,
+                      @Value("${app.seed.admin-percent:1}") int adminPercent,
+                      @Value("${app.seed.password:password}") String password,
+                      @Value("${app.seed.exit:false}") boolean exit) {
+        this.userService = userService;
+        this.roleService = roleService;
+        this.userRepository = userRepository;
+        this.userTableVersion = userTableVersion;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.context = context;
+        this.demoUsers = demoUsers;
+        this.users = users;
+        this.batchSize = batchSize;
+        this.adminPercent = adminPercent;
+        this.password = password;
+        this.exit = exit;
+    }
+
+    /**
+     * Заполняет базу при старте приложения.
+     * @param args Аргументы запуска.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (demoUsers) {
+            addDemoUser("admin", 30, "admin@mail.ru", "admin", "ROLE_ADMIN");
+            addDemoUser("user", 20, "user@mail.ru", "user", "ROLE_USER");
+        }
+        if (users > 0) {
+            seed();
+        }
+        if (exit) {
+            logger.info("Заполнение базы завершено, приложение останавливается (app.seed.exit=true)");
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void addDemoUser(String name, int age, String email, String rawPassword, String roleName) {
+        if (userRepository.existsByEmail(email)) {
+            return;
+        }
+        User user = new User();
+        user.setName(name);
+        user.setLastname(name);
+        user.setAge(age);
+        user.setEmail(email);
+        user.setPassword(rawPassword);
+        user.setRole(Set.of(roleService.findByRoleName(roleName)));
+        userService.addNewUser(user);
+        logger.info("Добавлен демонстрационный пользователь: {}", email);
+    }
+
+    private void seed() {
+        // MySQL ограничивает запрос 65535 параметрами, на пользователя их 7
+        if (batchSize < 1 || batchSize > 9000) {
+            throw new IllegalStateException("app.seed.batch-size must be between 1 and 9000");
+        }
+        long existing = seededPrefix();
+        if (existing >= users) {
+            logger.info("Синтетические пользователи уже созданы: {}", existing);
+            return;
+        }
+        long userRoleId = roleService.findByRoleName("ROLE_USER").getId();
+        long adminRoleId = roleService.findByRoleName("ROLE_ADMIN").getId();
+        // Хэш вычисляется один раз: BCrypt на каждого пользователя занял бы часы
+        String passwordHash = passwordEncoder.encode(password);
+        long nextId = reserveIds(users - existing);
+        logger.info("Создание синтетических пользователей: {} из {} (ID {}..{}), пачками по {}",
+                users - existing, users, nextId, nextId + users - existing - 1, batchSize);
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        for (long from = existing + 1; from <= users; from += batchSize) {
+            int count = (int) Math.min(batchSize, users - from + 1);
+            long firstId = nextId;
+            long firstIndex = from;
+            transactionTemplate.executeWithoutResult(status ->
+                    insertBatch(firstId, firstIndex, count, passwordHash, userRoleId, adminRoleId));
+            nextId += count;
+            long now = System.nanoTime();
+            if (now - lastReport > 10_000_000_000L || from + count > users) {
+                long done = from + count - 1 - existing;
+                logger.info("Создано {} из {} пользователей, {} в секунду", from + count - 1, users,
+                        done * 1_000_000_000L / Math.max(1, now - start));
+                lastReport = now;
+            }
+        }
+        logger.info("Синтетические пользователи созданы за {} с", (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    /**
+     * Резервирует в users_seq диапазон из count идентификаторов и возвращает первый из них.
+     * Значение V, полученное Hibernate из users_seq, дает ему блок V-49..V. Резерв получает значение V так же,
+     * но сдвигает последовательность не на 50, а на весь диапазон: следующий блок Hibernate начнется после него.
+     * Строки, вставленные в обход последовательности, пропускаются по MAX(id).
+     */
+    private long reserveIds(long count) {
+        SequenceDialect sequence = sequenceDialect();
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        // Последовательность только растет, поэтому запаса на строки выше ее текущего значения хватит
+        long gap = Math.max(0, maxId + SEQUENCE_ALLOCATION - sequence.current(jdbcTemplate));
+        // Шаг кратен 50: пока он действует, чужие блоки Hibernate не пересекаются
+        long span = (count + gap + SEQUENCE_ALLOCATION - 1) / SEQUENCE_ALLOCATION * SEQUENCE_ALLOCATION;
+        long value = transactionTemplate.execute(status -> sequence.reserve(jdbcTemplate, span));
+        return Math.max(value - SEQUENCE_ALLOCATION + 1, maxId + 1);
+    }
+
+    private void insertBatch(long firstId, long firstIndex, int count, String passwordHash,
+                             long userRoleId, long adminRoleId) {
+        List<Object> userArgs = new ArrayList<>(count * 7);
+        List<Object> roleArgs = new ArrayList<>(count * 2 + count / 10);
+        int links = 0;
+        for (int i = 0; i < count; i++) {
+            long index = firstIndex + i;
+            long id = firstId + i;
+            SplittableRandom random = new SplittableRandom(index);
+            String domain = domain(random);
+            userArgs.add(id);
+            userArgs.add(NAMES[random.nextInt(NAMES.length)]);
+            userArgs.add(LASTNAMES[random.nextInt(LASTNAMES.length)]);
+            userArgs.add(18 + random.nextInt(63));
+            userArgs.add(email(index, domain));
+            userArgs.add(domain);
+            userArgs.add(passwordHash);
+            roleArgs.add(id);
+            roleArgs.add(userRoleId);
+            links++;
+            if (random.nextInt(100) < adminPercent) {
+                roleArgs.add(id);
+                roleArgs.add(adminRoleId);
+                links++;
+            }
+        }
+        jdbcTemplate.update(multiRowInsert(
+                "INSERT INTO users (id, name, last_name, age, email, email_domain, password, version) VALUES ",
+                "(?, ?, ?, ?, ?, ?, ?, 0)", count), userArgs.toArray());
+        jdbcTemplate.update(multiRowInsert("INSERT INTO users_roles (user_id, role_id) VALUES ", "(?, ?)", links),
+                roleArgs.toArray());
+        // Вставка в обход сервиса тоже делает прежние ETag списка недействительными
+        userTableVersion.increment();
+    }
+
+    // Количество уже созданных синтетических пользователей: наибольшее k, для которого seedk существует.
+    private long seededPrefix() {
+        long low = 0;
+        long high = users;
+        while (low < high) {
+            long middle = low + (high - low + 1) / 2;
+            String email = email(middle, domain(new SplittableRandom(middle)));
+            if (userRepository.existsByEmail(email)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static String email(long index, String domain) {
+        return "seed" + index + "@" + domain;
+    }
+
+    // Первое значение генератора пользователя - домен, чтобы email можно было вычислить по номеру.
+    private static String domain(SplittableRandom random) {
+        int value = random.nextInt(100);
+        for (int i = 0; i < DOMAINS.length; i++) {
+            value -= DOMAIN_WEIGHTS[i];
+            if (value < 0) {
+                return DOMAINS[i];
+            }
+        }
+        return DOMAINS[DOMAINS.length - 1];
+    }
+
+    private static String multiRowInsert(String prefix, String row, int rows) {
+        return prefix + String.join(", ", Collections.nCopies(rows, row));
+    }
+
+    private SequenceDialect sequenceDialect() {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product.equals("H2") ? SequenceDialect.H2 : SequenceDialect.MYSQL;
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot detect database for users_seq", e);
+        }
+    }
+
+    // Чтение и атомарный сдвиг users_seq: в MySQL это таблица (эмуляция Hibernate), в H2 - настоящая последовательность.
+    private enum SequenceDialect {
+        MYSQL {
+            @Override
+            long current(JdbcTemplate jdbcTemplate) {
+                return jdbcTemplate.queryForObject("SELECT next_val FROM users_seq", Long.class);
+            }
+
+            // Hibernate выбирает блок тем же SELECT ... FOR UPDATE, поэтому ждет конца транзакции резерва
+            @Override
+            long reserve(JdbcTemplate jdbcTemplate, long span) {
+                long value = jdbcTemplate.queryForObject("SELECT next_val FROM users_seq FOR UPDATE", Long.class);
+                jdbcTemplate.update("UPDATE users_seq SET next_val = ?", value + span);
+                return value;
+            }
+        },
+        H2 {
+            @Override
+            long current(JdbcTemplate jdbcTemplate) {
+                return jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                        + "WHERE LOWER(SEQUENCE_NAME) = 'users_seq'", Long.class);
+            }
+
+            // Последовательность нельзя заблокировать, поэтому на время резерва меняется ее шаг:
+            // NEXT VALUE атомарно выдает значение и сдвигает ее на весь диапазон
+            @Override
+            long reserve(JdbcTemplate jdbcTemplate, long span) {
+                jdbcTemplate.execute("ALTER SEQUENCE users_seq INCREMENT BY " + span);
+                try {
+                    return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+                } finally {
+                    jdbcTemplate.execute("ALTER SEQUENCE users_seq INCREMENT BY " + SEQUENCE_ALLOCATION);
+                }
+            }
+        };
+
+        abstract long current(JdbcTemplate jdbcTemplate);
+
+        /**
+         * Выдает следующее значение users_seq и сдвигает последовательность на span вместо allocationSize.
+         * @param jdbcTemplate Шаблон JDBC.
+         * @param span Размер резерва, кратный allocationSize.
+         * @return Полученное значение.
+         */
+        abstract long reserve(JdbcTemplate jdbcTemplate, long span);
+    }
+}
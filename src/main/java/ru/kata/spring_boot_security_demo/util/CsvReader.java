@@ -0,0 +1,119 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV по RFC 4180: поля в кавычках могут содержать запятые, кавычки ("") и переводы строк.
+ * Читает по одной записи, не загружая файл целиком.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private int pushback = -2;
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * Конструктор.
+     * @param reader Источник символов (желательно буферизованный).
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Читает следующую запись.
+     * @return Поля записи или null, если данные закончились.
+     * @throws MalformedCsvException Если кавычка не закрыта до конца данных.
+     * @throws IOException Если возникает ошибка чтения.
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        // Пустые строки между записями пропускаются
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedCsvException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int nextChar = read();
+                    if (nextChar == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = nextChar;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int nextChar = read();
+                    if (nextChar != '\n') {
+                        pushback = nextChar;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Возвращает номер строки, с которой началась последняя прочитанная запись.
+     * @return Номер строки (с 1).
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushback != -2) {
+            c = pushback;
+            pushback = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Исключение для синтаксически некорректного CSV.
+     */
+    public static class MalformedCsvException extends IOException {
+
+        /**
+         * Конструктор с сообщением об ошибке.
+         * @param message Сообщение об ошибке.
+         */
+        public MalformedCsvException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Исключение, выбрасываемое, когда пул хэширования паролей перегружен.
+ * Наследует AuthenticationServiceException, чтобы при логине попадать в обработчик неудачной аутентификации.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    // Логгер для отслеживания исключений.
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingRejectedException.class);
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Конструктор с сообщением и рекомендуемой задержкой повтора.
+     * @param message Сообщение об ошибке.
+     * @param retryAfterSeconds Через сколько секунд клиенту стоит повторить запрос.
+     */
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+        logger.warn("PasswordHashingRejectedException: {}", message);
+    }
+
+    /**
+     * Возвращает рекомендуемую задержку повтора.
+     * @return Количество секунд для заголовка Retry-After.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
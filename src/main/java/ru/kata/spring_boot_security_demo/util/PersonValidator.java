@@ -3,12 +3,11 @@ package ru.kata.spring_boot_security_demo.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ru.kata.spring_boot_security_demo.models.User;
-import ru.kata.spring_boot_security_demo.service.UserDetailsServiceImp;
+import ru.kata.spring_boot_security_demo.service.UserService;
 
 /**
  * Валидатор для проверки уникальности email пользователя.
@@ -19,16 +18,16 @@ public class PersonValidator implements Validator {
     // Логгер для отслеживания операций валидации.
     private static final Logger logger = LoggerFactory.getLogger(PersonValidator.class);
 
-    private final UserDetailsServiceImp userDetailsServiceImp;
+    private final UserService userService;
 
     /**
      * Конструктор для инъекции зависимостей.
-     * @param userDetailsServiceImp Сервис для проверки пользователей.
+     * @param userService Сервис для проверки пользователей.
      */
     @Autowired
-    public PersonValidator(UserDetailsServiceImp userDetailsServiceImp) {
+    public PersonValidator(UserService userService) {
         logger.info("Инициализация PersonValidator");
-        this.userDetailsServiceImp = userDetailsServiceImp;
+        this.userService = userService;
     }
 
     /**
@@ -52,11 +51,10 @@ public class PersonValidator implements Validator {
     public void validate(Object target, Errors errors) {
         User person = (User) target;
         logger.info("Валидация пользователя с email: {}", person.getEmail());
-        try {
-            userDetailsServiceImp.loadUserByUsername(person.getEmail());
+        if (userService.isEmailTaken(person.getEmail())) {
             errors.rejectValue("email", "Invalid email address", "Email уже занят");
             logger.warn("Email {} уже занят", person.getEmail());
-        } catch (UsernameNotFoundException ignored) {
+        } else {
             logger.debug("Email {} свободен", person.getEmail());
         }
     }
@@ -0,0 +1,151 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Счетчики SQL-запросов текущего потока: количество выполнений, прочитанных и измененных строк и время.
+ * Области (HTTP-запрос, вызов метода репозитория) открываются start и закрываются stop; каждый запрос
+ * учитывается во всех открытых областях потока. Дополнительно считается, сколько раз выполнялся каждый
+ * текст запроса, что показывает N+1 (один и тот же запрос с разными параметрами).
+ */
+public final class SqlStatistics {
+
+    // Ограничение числа различных текстов запросов в одной области.
+    private static final int MAX_DISTINCT_STATEMENTS = 100;
+
+    private static final ThreadLocal<ArrayDeque<SqlStatistics>> active = new ThreadLocal<>();
+
+    private final String name;
+    private final Map<String, Integer> statements = new HashMap<>();
+    private int queries;
+    private long rows;
+    private long nanos;
+
+    private SqlStatistics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Открывает область подсчета в текущем потоке.
+     * @param name Имя области для логов.
+     * @return Открытая область.
+     */
+    public static SqlStatistics start(String name) {
+        ArrayDeque<SqlStatistics> scopes = active.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            active.set(scopes);
+        }
+        SqlStatistics statistics = new SqlStatistics(name);
+        scopes.addLast(statistics);
+        return statistics;
+    }
+
+    /**
+     * Закрывает область; после этого запросы потока в ней не учитываются.
+     */
+    public void stop() {
+        ArrayDeque<SqlStatistics> scopes = active.get();
+        if (scopes != null) {
+            scopes.removeLastOccurrence(this);
+            if (scopes.isEmpty()) {
+                active.remove();
+            }
+        }
+    }
+
+    /**
+     * Учитывает выполненный запрос во всех открытых областях потока.
+     * @param sql Текст запроса.
+     * @param affectedRows Количество измененных строк (0 для SELECT: прочитанные строки учитываются отдельно).
+     * @param elapsedNanos Время выполнения.
+     */
+    public static void recordQuery(String sql, long affectedRows, long elapsedNanos) {
+        ArrayDeque<SqlStatistics> scopes = active.get();
+        if (scopes == null) {
+            return;
+        }
+        for (SqlStatistics statistics : scopes) {
+            statistics.queries++;
+            statistics.rows += affectedRows;
+            statistics.nanos += elapsedNanos;
+            if (statistics.statements.size() < MAX_DISTINCT_STATEMENTS || statistics.statements.containsKey(sql)) {
+                statistics.statements.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Учитывает прочитанную строку результата во всех открытых областях потока
+     * (вызывается, только если включен подсчет прочитанных строк).
+     */
+    public static void recordRow() {
+        ArrayDeque<SqlStatistics> scopes = active.get();
+        if (scopes == null) {
+            return;
+        }
+        for (SqlStatistics statistics : scopes) {
+            statistics.rows++;
+        }
+    }
+
+    /**
+     * Публикует счетчики области как метрики sql.queries, sql.rows и sql.time.
+     * @param meterRegistry Реестр метрик.
+     * @param scope Вид области (request или repository).
+     * @param target Шаблон URL или метод репозитория.
+     */
+    public void publish(MeterRegistry meterRegistry, String scope, String target) {
+        DistributionSummary.builder("sql.queries").tag("scope", scope).tag("target", target)
+                .register(meterRegistry).record(queries);
+        DistributionSummary.builder("sql.rows").tag("scope", scope).tag("target", target)
+                .register(meterRegistry).record(rows);
+        Timer.builder("sql.time").tag("scope", scope).tag("target", target)
+                .register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Возвращает тексты запросов, выполненных больше одного раза, по убыванию числа выполнений.
+     * @param limit Максимальное количество запросов.
+     * @return Текст запроса и количество выполнений.
+     */
+    public Map<String, Integer> repeatedStatements(int limit) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueries() {
+        return queries;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": запросов=" + queries + ", строк=" + rows + ", время=" + nanos / 1_000_000 + " мс";
+    }
+}
@@ -0,0 +1,90 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Неблокирующий ограничитель частоты (token bucket в форме GCRA) с фиксированным объемом памяти.
+ * Ключи хэшируются в массив слотов; каждый слот хранит одно число - "теоретическое время прихода"
+ * следующего запроса - и обновляется через CAS без блокировок. Ключи, попавшие в один слот,
+ * делят общий лимит, что только ужесточает ограничение.
+ */
+public class StripedRateLimiter {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final long maxDelayNanos;
+    private final long origin = System.nanoTime();
+
+    /**
+     * Конструктор.
+     * @param stripes Количество слотов (округляется вверх до степени двойки).
+     * @param permitsPerMinute Средняя разрешенная частота.
+     * @param burst Размер "ведра" - сколько запросов можно сделать подряд.
+     * @param maxDelay Максимальная задержка, до которой могут накапливаться штрафы.
+     */
+    public StripedRateLimiter(int stripes, int permitsPerMinute, int burst, Duration maxDelay) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = Duration.ofMinutes(1).toNanos() / Math.max(1, permitsPerMinute);
+        this.burstToleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * Пытается списать один токен для ключа.
+     * @param key Ключ (IP-адрес, email).
+     * @return 0, если запрос разрешен, иначе через сколько наносекунд появится токен.
+     */
+    public long tryAcquire(String key) {
+        int slot = slot(key);
+        long now = now();
+        while (true) {
+            long tat = slots.get(slot);
+            long base = Math.max(tat, now);
+            long wait = base - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (slots.compareAndSet(slot, tat, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Списывает дополнительные токены для ключа (штраф за неудачную попытку).
+     * Штраф накапливается не дольше, чем на maxDelay вперед.
+     * @param key Ключ.
+     * @param permits Количество списываемых токенов.
+     */
+    public void penalize(String key, int permits) {
+        int slot = slot(key);
+        long now = now();
+        long limit = now + burstToleranceNanos + maxDelayNanos;
+        while (true) {
+            long tat = slots.get(slot);
+            long next = Math.min(Math.max(tat, now) + intervalNanos * permits, limit);
+            if (next <= tat || slots.compareAndSet(slot, tat, next)) {
+                return;
+            }
+        }
+    }
+
+    private long now() {
+        // Отсчет от момента создания, чтобы нулевые слоты всегда считались "свободными"
+        return System.nanoTime() - origin;
+    }
+
+    private int slot(String key) {
+        int h = key == null ? 0 : key.toLowerCase(Locale.ROOT).hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & mask;
+    }
+}
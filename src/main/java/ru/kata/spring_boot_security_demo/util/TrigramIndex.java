@@ -0,0 +1,314 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Потокобезопасный n-грамный индекс для поиска по префиксу и подстроке в нескольких текстовых полях.
+ * Каждому документу (ID + поля) присваивается внутренний номер; для каждой триграммы хранится
+ * возрастающий список номеров в массиве int. Начало поля дополняется служебным символом, поэтому
+ * запросы из 1-2 символов ищутся как префикс, а запросы от 3 символов - как подстрока.
+ * Кандидаты, полученные пересечением списков, проверяются по самим полям, ложных совпадений нет.
+ * Изменение документа помечает старый номер удаленным и добавляет новый; списки сжимаются,
+ * когда удаленных номеров становится больше живых.
+ */
+public class TrigramIndex {
+
+    // Символ начала поля: после normalize в тексте не встречается.
+    private static final char START = '\u0001';
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> docById = new HashMap<>();
+    private long[] docIds = new long[1024];
+    private String[][] docFields = new String[1024][];
+    private final BitSet live = new BitSet();
+    private int docCount;
+    private int deadCount;
+
+    /**
+     * Добавляет документ или заменяет поля существующего.
+     * @param id Идентификатор документа.
+     * @param fields Индексируемые поля (null допускается).
+     */
+    public void put(long id, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = fields[i] == null ? "" : normalize(fields[i]);
+        }
+        long[] keys = documentKeys(normalized);
+        lock.writeLock().lock();
+        try {
+            Integer previous = docById.get(id);
+            if (previous != null) {
+                if (Arrays.equals(docFields[previous], normalized)) {
+                    return;
+                }
+                kill(previous);
+            }
+            int doc = append(id, normalized);
+            for (long key : keys) {
+                postings.computeIfAbsent(key, k -> new IntList()).add(doc);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет документ.
+     * @param id Идентификатор документа.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docById.get(id);
+            if (doc != null) {
+                kill(doc);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет документы, поля которых (в нижнем регистре) удовлетворяют условию. Проход по всем документам.
+     * @param condition Условие по нормализованным полям.
+     * @return Количество удаленных документов.
+     */
+    public int removeIf(Predicate<String[]> condition) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                if (condition.test(docFields[doc])) {
+                    kill(doc);
+                    removed++;
+                }
+            }
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет документы, у которых каждое слово запроса совпадает с началом (1-2 символа)
+     * или подстрокой (от 3 символов) хотя бы одного поля.
+     * @param query Запрос.
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы найденных документов в порядке добавления.
+     */
+    public long[] search(String query, int limit) {
+        String[] terms = normalize(query).trim().split("\\s+");
+        if (limit <= 0 || terms.length == 0 || terms[0].isEmpty()) {
+            return new long[0];
+        }
+        long[] keys = queryKeys(terms);
+        lock.readLock().lock();
+        try {
+            IntList[] lists = new IntList[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                lists[i] = postings.get(keys[i]);
+                if (lists[i] == null) {
+                    return new long[0];
+                }
+            }
+            // Перебор идет по самому короткому списку, остальные проверяются двоичным поиском
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int[] positions = new int[lists.length];
+            long[] result = new long[Math.min(limit, lists[0].size)];
+            int found = 0;
+            IntList smallest = lists[0];
+            for (int i = 0; i < smallest.size && found < result.length; i++) {
+                int doc = smallest.values[i];
+                if (!live.get(doc) || !containsInOthers(lists, positions, doc) || !matches(docFields[doc], terms)) {
+                    continue;
+                }
+                result[found++] = docIds[doc];
+            }
+            return found == result.length ? result : Arrays.copyOf(result, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество документов в индексе.
+     * @return Количество живых документов.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containsInOthers(IntList[] lists, int[] positions, int doc) {
+        for (int l = 1; l < lists.length; l++) {
+            IntList list = lists[l];
+            int index = Arrays.binarySearch(list.values, positions[l], list.size, doc);
+            if (index < 0) {
+                positions[l] = -index - 1;
+                return false;
+            }
+            positions[l] = index;
+        }
+        return true;
+    }
+
+    private static boolean matches(String[] fields, String[] terms) {
+        for (String term : terms) {
+            boolean prefixOnly = term.length() < 3;
+            boolean matched = false;
+            for (String field : fields) {
+                if (prefixOnly ? field.startsWith(term) : field.contains(term)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int append(long id, String[] fields) {
+        if (docCount == docIds.length) {
+            int capacity = docIds.length + (docIds.length >> 1);
+            docIds = Arrays.copyOf(docIds, capacity);
+            docFields = Arrays.copyOf(docFields, capacity);
+        }
+        int doc = docCount++;
+        docIds[doc] = id;
+        docFields[doc] = fields;
+        live.set(doc);
+        docById.put(id, doc);
+        return doc;
+    }
+
+    private void kill(int doc) {
+        live.clear(doc);
+        docById.remove(docIds[doc]);
+        docFields[doc] = null;
+        deadCount++;
+    }
+
+    // Перенумеровывает живые документы подряд и перестраивает списки без удаленных номеров.
+    private void compactIfNeeded() {
+        if (deadCount < MIN_COMPACTION || deadCount <= docById.size()) {
+            return;
+        }
+        long[] oldIds = docIds;
+        String[][] oldFields = docFields;
+        int oldCount = docCount;
+        int capacity = Math.max(1024, docById.size() + (docById.size() >> 1));
+        docIds = new long[capacity];
+        docFields = new String[capacity][];
+        live.clear();
+        docById.clear();
+        postings.clear();
+        docCount = 0;
+        deadCount = 0;
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldFields[doc] != null) {
+                int newDoc = append(oldIds[doc], oldFields[doc]);
+                for (long key : documentKeys(oldFields[doc])) {
+                    postings.computeIfAbsent(key, k -> new IntList()).add(newDoc);
+                }
+            }
+        }
+    }
+
+    // Уникальные триграммы всех полей документа; каждое поле дополняется в начале двумя START.
+    private static long[] documentKeys(String[] fields) {
+        int total = 0;
+        for (String field : fields) {
+            total += field.length();
+        }
+        long[] keys = new long[total];
+        int count = 0;
+        for (String field : fields) {
+            for (int i = 0; i < field.length(); i++) {
+                char first = i >= 2 ? field.charAt(i - 2) : START;
+                char second = i >= 1 ? field.charAt(i - 1) : START;
+                keys[count++] = key(first, second, field.charAt(i));
+            }
+        }
+        return distinct(keys, count);
+    }
+
+    private static long[] queryKeys(String[] terms) {
+        long[] keys = new long[terms.length * 8];
+        int count = 0;
+        for (String term : terms) {
+            if (term.length() < 3) {
+                // Префикс: триграмма с дополнением начала поля
+                char second = term.length() == 1 ? START : term.charAt(0);
+                keys = ensureCapacity(keys, count + 1);
+                keys[count++] = key(START, second, term.charAt(term.length() - 1));
+            } else {
+                keys = ensureCapacity(keys, count + term.length() - 2);
+                for (int i = 2; i < term.length(); i++) {
+                    keys[count++] = key(term.charAt(i - 2), term.charAt(i - 1), term.charAt(i));
+                }
+            }
+        }
+        return distinct(keys, count);
+    }
+
+    private static long[] ensureCapacity(long[] keys, int required) {
+        return required <= keys.length ? keys : Arrays.copyOf(keys, Math.max(required, keys.length * 2));
+    }
+
+    private static long[] distinct(long[] keys, int count) {
+        Arrays.sort(keys, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || keys[unique - 1] != keys[i]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    private static long key(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    // Нижний регистр; управляющие символы заменяются пробелом, чтобы START не встретился в тексте.
+    private static String normalize(String value) {
+        char[] chars = value.toLowerCase(Locale.ROOT).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (Character.isISOControl(chars[i])) {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+
+    // Растущий массив int без упаковки значений.
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
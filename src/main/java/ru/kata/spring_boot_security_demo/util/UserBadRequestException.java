@@ -0,0 +1,22 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Исключение, выбрасываемое при некорректных параметрах запроса.
+ */
+public class UserBadRequestException extends RuntimeException {
+
+    // Логгер для отслеживания исключений.
+    private static final Logger logger = LoggerFactory.getLogger(UserBadRequestException.class);
+
+    /**
+     * Конструктор с сообщением об ошибке.
+     * @param message Сообщение об ошибке.
+     */
+    public UserBadRequestException(String message) {
+        super(message);
+        logger.warn("UserBadRequestException: {}", message);
+    }
+}
@@ -2,6 +2,7 @@ package ru.kata.spring_boot_security_demo.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -40,6 +41,18 @@ public class UserGlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Обрабатывает исключение UserBadRequestException.
+     * @param e Исключение.
+     * @return Ответ с ошибкой 400.
+     */
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(UserBadRequestException e) {
+        logger.warn("Обработка UserBadRequestException: {}", e.getMessage());
+        UserErrorResponse error = new UserErrorResponse(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * Обрабатывает исключение UserNotEditException.
      * @param e Исключение.
@@ -52,6 +65,34 @@ public class UserGlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Обрабатывает исключение UserVersionConflictException.
+     * @param e Исключение.
+     * @return Ответ с ошибкой 412 и заголовком ETag текущей версии.
+     */
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(UserVersionConflictException e) {
+        logger.warn("Обработка UserVersionConflictException: {}", e.getMessage());
+        UserErrorResponse error = new UserErrorResponse(e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(String.valueOf(e.getCurrentVersion()))
+                .body(error);
+    }
+
+    /**
+     * Обрабатывает исключение PasswordHashingRejectedException.
+     * @param e Исключение.
+     * @return Ответ с ошибкой 503 и заголовком Retry-After.
+     */
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(PasswordHashingRejectedException e) {
+        logger.warn("Обработка PasswordHashingRejectedException: {}", e.getMessage());
+        UserErrorResponse error = new UserErrorResponse(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     /**
      * Обрабатывает общие исключения.
      * @param e Исключение.
@@ -0,0 +1,47 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации пользователей по ID.
+ * Курсор непрозрачен для клиента: base64url от ID последнего пользователя страницы.
+ * Общий для блокирующего (UserService) и неблокирующего (ReactiveUserService) чтения.
+ */
+public final class UserPageCursor {
+
+    private UserPageCursor() {
+    }
+
+    /**
+     * Кодирует ID последнего пользователя страницы в курсор.
+     * @param lastId ID последнего пользователя страницы.
+     * @return Курсор следующей страницы.
+     */
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Декодирует курсор в ID, после которого начинается страница.
+     * @param cursor Курсор или null для первой страницы.
+     * @return ID последнего пользователя предыдущей страницы или 0.
+     * @throws UserBadRequestException Если курсор поврежден.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            long lastId = Long.parseLong(decoded);
+            if (lastId < 0) {
+                throw new NumberFormatException(decoded);
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new UserBadRequestException("Invalid cursor");
+        }
+    }
+}
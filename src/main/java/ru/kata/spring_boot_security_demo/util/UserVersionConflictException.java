@@ -0,0 +1,33 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Исключение, выбрасываемое, если пользователь изменен после чтения клиентом (If-Match не совпал с версией).
+ */
+public class UserVersionConflictException extends RuntimeException {
+
+    // Логгер для отслеживания исключений.
+    private static final Logger logger = LoggerFactory.getLogger(UserVersionConflictException.class);
+
+    private final long currentVersion;
+
+    /**
+     * Конструктор с текущей версией пользователя.
+     * @param currentVersion Версия пользователя в базе данных.
+     */
+    public UserVersionConflictException(long currentVersion) {
+        super("User was modified by another request");
+        this.currentVersion = currentVersion;
+        logger.warn("UserVersionConflictException: текущая версия {}", currentVersion);
+    }
+
+    /**
+     * Возвращает версию пользователя в базе данных (для ETag ответа 412).
+     * @return Текущая версия.
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,37 @@
+-- Схема пользователей и ролей для встроенной H2 (тесты). Совпадает с db/migration/mysql.
+
+CREATE TABLE roles (
+    id        BIGINT       GENERATED BY DEFAULT AS IDENTITY,
+    role_name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_role_name UNIQUE (role_name)
+);
+
+CREATE TABLE users (
+    id           BIGINT       NOT NULL,
+    name         VARCHAR(30)  NOT NULL,
+    last_name    VARCHAR(255),
+    age          INTEGER      NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    email_domain VARCHAR(255),
+    password     VARCHAR(255),
+    version      BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE INDEX idx_users_age ON users (age, id);
+CREATE INDEX idx_users_last_name ON users (last_name, id);
+CREATE INDEX idx_users_email_domain ON users (email_domain, id);
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_users_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE INDEX idx_users_roles_role ON users_roles (role_id, user_id);
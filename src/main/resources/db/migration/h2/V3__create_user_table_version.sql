@@ -0,0 +1,9 @@
+-- Общая версия таблицы пользователей для ETag списка. Совпадает с db/migration/mysql.
+
+CREATE TABLE user_table_version (
+    id      INTEGER NOT NULL,
+    version BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO user_table_version (id, version) VALUES (1, 0);
@@ -0,0 +1,43 @@
+-- Схема пользователей и ролей. Имена индексов совпадают с @Index в User.
+
+CREATE TABLE roles (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    role_name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_role_name UNIQUE (role_name)
+) ENGINE = InnoDB;
+
+CREATE TABLE users (
+    id           BIGINT       NOT NULL,
+    name         VARCHAR(30)  NOT NULL,
+    last_name    VARCHAR(255),
+    age          INT          NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    email_domain VARCHAR(255),
+    password     VARCHAR(255),
+    version      BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_users_age ON users (age, id);
+CREATE INDEX idx_users_last_name ON users (last_name, id);
+CREATE INDEX idx_users_email_domain ON users (email_domain, id);
+
+-- Последовательность users_seq для @SequenceGenerator (allocationSize = 50): в MySQL Hibernate эмулирует ее таблицей
+CREATE TABLE users_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO users_seq VALUES (1);
+
+-- Первичный ключ (user_id, role_id) кластеризует связи по пользователю; индекс по role_id - для фильтра по роли
+CREATE TABLE users_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_users_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_users_roles_role ON users_roles (role_id, user_id);
@@ -0,0 +1,3 @@
+-- Справочник ролей (раньше создавался DbInit при старте)
+INSERT INTO roles (role_name) VALUES ('ROLE_USER');
+INSERT INTO roles (role_name) VALUES ('ROLE_ADMIN');
@@ -0,0 +1,10 @@
+-- Общая версия таблицы пользователей для ETag списка: одна строка, увеличивается в транзакции каждой записи
+-- в users и users_roles, поэтому видна всем экземплярам приложения и репликам вместе с самими данными.
+
+CREATE TABLE user_table_version (
+    id      INT    NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO user_table_version (id, version) VALUES (1, 0);
@@ -1,12 +1,17 @@
 // Функция для отправки данных отредактированного пользователя на сервер
-async function sendDataEditUser(user) {
+async function sendDataEditUser(user, etag) {
     try {
+        const headers = {
+            'Content-Type': 'application/json',
+            'Accept': 'application/json'
+        };
+        // Сервер отклонит изменение (412), если пользователя уже изменили после открытия формы
+        if (etag) {
+            headers['If-Match'] = etag;
+        }
         const response = await fetch(`/api/admin`, {
             method: "PUT",
-            headers: {
-                'Content-Type': 'application/json',
-                'Accept': 'application/json'
-            },
+            headers: headers,
             body: JSON.stringify({
                 id: user.id,
                 name: user.name,
@@ -18,6 +23,9 @@ async function sendDataEditUser(user) {
             })
         });
 
+        if (response.status === 412) {
+            throw new Error('Пользователь был изменен другим администратором, откройте форму заново');
+        }
         if (!response.ok) {
             throw new Error('Не удалось обновить пользователя');
         }
@@ -65,7 +73,7 @@ modalEdit.addEventListener("submit", async function (event) {
             role: roles
         };
 
-        await sendDataEditUser(user);
+        await sendDataEditUser(user, $(modalEdit).data("etag"));
         await fillTableOfAllUsers();
         $('#editModal').modal('hide');
         showAlert('Пользователь успешно обновлен', 'success');
@@ -6,6 +6,8 @@ async function getUserDataById(userId) {
             throw new Error(`Ошибка получения данных пользователя: ${response.statusText}`);
         }
         const user = await response.json();
+        // Версия пользователя для условного PUT (If-Match)
+        user.etag = response.headers.get("ETag");
         console.log(`Данные пользователя с ID ${userId} получены`);
         return user;
     } catch (error) {
@@ -31,12 +33,13 @@ async function fillModal(modal) {
             const emailInput = modalBody.find("input[data-user-id='email']");
             const passwordInput = modalBody.find("input[data-user-id='password']");
 
-            // Заполнение поля пароля, если оно существует
+            // Пароль не передается с сервера: пустое поле означает, что пароль не меняется
             if (passwordInput.length) {
-                passwordInput.val(user.password);
+                passwordInput.val("");
             }
 
             // Заполнение полей формы
+            $(modal).data("etag", user.etag);
             idInput.val(user.id);
             nameInput.val(user.name);
             lastNameInput.val(user.lastname);
@@ -1,13 +1,21 @@
-// Функция для получения данных обо всех пользователях
-async function dataAboutAllUsers() {
+// Курсор следующей страницы пользователей (null - страниц больше нет)
+let usersNextCursor = null;
+// Признак загрузки страницы, чтобы прокрутка не запускала параллельные запросы
+let usersPageLoading = false;
+
+// Функция для получения страницы пользователей по курсору
+async function dataAboutAllUsers(cursor) {
     try {
-        const response = await fetch("/api/admin");
+        const url = cursor ? `/api/admin?cursor=${encodeURIComponent(cursor)}` : "/api/admin";
+        // Сервер отдает ETag версии таблицы и Cache-Control: no-cache - браузер сам отправляет
+        // If-None-Match и при ответе 304 возвращает страницу из своего кэша
+        const response = await fetch(url);
         if (!response.ok) {
             throw new Error(`Ошибка получения списка пользователей: ${response.statusText}`);
         }
-        const users = await response.json();
-        console.log(`Получено ${users.length} пользователей`);
-        return users;
+        const page = await response.json();
+        console.log(`Получено ${page.items.length} пользователей`);
+        return page;
     } catch (error) {
         console.error('Ошибка получения данных пользователей:', error);
         throw error;
@@ -30,39 +38,53 @@ async function dataAboutCurrentUser() {
     }
 }
 
-// Функция для заполнения таблицы всех пользователей в админ-панели
-async function fillTableOfAllUsers() {
+// Функция для формирования строки таблицы пользователя
+function userRowHTML(user) {
+    return `<tr>
+                <td>${user.id}</td>
+                <td>${user.name}</td>
+                <td>${user.lastname}</td>
+                <td>${user.age}</td>
+                <td>${user.email}</td>
+                <td>${user.role.map(role => role.roleName).join(' ')}</td>
+                <td>
+                    <button class="btn btn-info btn-sm text-white"
+                            data-toggle="modal"
+                            data-target="#editModal"
+                            data-user-id="${user.id}">
+                        Edit</button>
+                </td>
+                <td>
+                    <button class="btn btn-danger btn-sm btn-delete"
+                            data-toggle="modal"
+                            data-target="#deleteModal"
+                            data-user-id="${user.id}">
+                        Delete</button>
+                </td>
+            </tr>`;
+}
+
+// Функция для дозагрузки следующей страницы в таблицу всех пользователей
+async function appendNextUsersPage(cursor) {
+    usersPageLoading = true;
     try {
+        const page = await dataAboutAllUsers(cursor);
         const usersTable = document.getElementById("usersTable");
-        const users = await dataAboutAllUsers();
-
-        let usersTableHTML = "";
-        for (let user of users) {
-            usersTableHTML +=
-                `<tr>
-                    <td>${user.id}</td>
-                    <td>${user.name}</td>
-                    <td>${user.lastname}</td>
-                    <td>${user.age}</td>
-                    <td>${user.email}</td>
-                    <td>${user.role.map(role => role.roleName).join(' ')}</td>
-                    <td>
-                        <button class="btn btn-info btn-sm text-white"
-                                data-toggle="modal"
-                                data-target="#editModal"
-                                data-user-id="${user.id}">
-                            Edit</button>
-                    </td>
-                    <td>
-                        <button class="btn btn-danger btn-sm btn-delete"
-                                data-toggle="modal"
-                                data-target="#deleteModal"
-                                data-user-id="${user.id}">                     
-                            Delete</button>
-                    </td>
-                </tr>`;
+        if (!cursor) {
+            usersTable.innerHTML = "";
         }
-        usersTable.innerHTML = usersTableHTML;
+        usersTable.insertAdjacentHTML("beforeend", page.items.map(userRowHTML).join(""));
+        usersNextCursor = page.nextCursor;
+    } finally {
+        usersPageLoading = false;
+    }
+}
+
+// Функция для заполнения таблицы всех пользователей в админ-панели (с первой страницы)
+async function fillTableOfAllUsers() {
+    try {
+        usersNextCursor = null;
+        await appendNextUsersPage(null);
         console.log("Таблица пользователей заполнена");
     } catch (error) {
         console.error('Ошибка заполнения таблицы пользователей:', error);
@@ -70,6 +92,22 @@ async function fillTableOfAllUsers() {
     }
 }
 
+// Подгрузка следующей страницы при прокрутке к концу таблицы
+window.addEventListener("scroll", async () => {
+    if (!usersNextCursor || usersPageLoading) {
+        return;
+    }
+    if (window.innerHeight + window.scrollY < document.body.offsetHeight - 200) {
+        return;
+    }
+    try {
+        await appendNextUsersPage(usersNextCursor);
+    } catch (error) {
+        console.error('Ошибка подгрузки страницы пользователей:', error);
+        showAlert('Ошибка загрузки списка пользователей', 'danger');
+    }
+});
+
 // Функция для заполнения таблицы текущего пользователя
 async function fillTableAboutCurrentUser() {
     try {
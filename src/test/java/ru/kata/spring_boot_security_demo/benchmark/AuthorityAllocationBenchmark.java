@@ -0,0 +1,76 @@
+package ru.kata.spring_boot_security_demo.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Микробенчмарк аллокаций на один авторизованный запрос при обращениях к principal.
+ * Сравнивает прежнюю реализацию getAuthorities (новый список через stream на каждый вызов)
+ * с предвычисленным неизменяемым списком интернированных authority.
+ * Запуск: mvn test -Pbenchmark -Dtest=AuthorityAllocationBenchmark
+ */
+class AuthorityAllocationBenchmark {
+
+    // Сколько раз Spring Security и контроллеры обращаются к principal за один запрос (оценка сверху).
+    private static final int CALLS_PER_REQUEST = 8;
+    private static final int REQUESTS = 200_000;
+
+    private static volatile Object sink;
+
+    @Test
+    void allocationPerAuthorizedRequest() {
+        User user = new User();
+        user.setEmail("admin@mail.ru");
+        user.setRole(Set.of(new Role(1L, "ROLE_USER"), new Role(2L, "ROLE_ADMIN")));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runLegacy(user);
+            runCurrent(user);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        runLegacy(user);
+        long legacyBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        runCurrent(user);
+        long currentBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        System.out.printf("%-30s %12s%n", "variant", "bytes/request");
+        System.out.printf("%-30s %12.1f%n", "stream per call (before)", (double) legacyBytes / REQUESTS);
+        System.out.printf("%-30s %12.1f%n", "precomputed (after)", (double) currentBytes / REQUESTS);
+    }
+
+    private static void runLegacy(User user) {
+        for (int request = 0; request < REQUESTS; request++) {
+            for (int call = 0; call < CALLS_PER_REQUEST; call++) {
+                Collection<? extends GrantedAuthority> authorities = user.getRole().stream()
+                        .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
+                        .collect(Collectors.toList());
+                sink = authorities;
+                sink = user.isEnabled() ? user.getUsername() : null;
+            }
+        }
+    }
+
+    private static void runCurrent(User user) {
+        for (int request = 0; request < REQUESTS; request++) {
+            for (int call = 0; call < CALLS_PER_REQUEST; call++) {
+                sink = user.getAuthorities();
+                sink = user.isEnabled() ? user.getUsername() : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.kata.spring_boot_security_demo.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Бенчмарк времени проверки пароля BCrypt для разных значений cost.
+ * Запуск: mvn test -Pbenchmark -Dtest=BCryptCostBenchmark [-Dbenchmark.bcrypt.costs=10,11,12] [-Dbenchmark.bcrypt.iterations=50]
+ * Результат (p50/p99 на текущем железе) помогает выбрать app.security.bcrypt.strength.
+ */
+class BCryptCostBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Test
+    void verifyLatencyPerCost() {
+        int[] costs = Arrays.stream(System.getProperty("benchmark.bcrypt.costs", "8,9,10,11,12").split(","))
+                .mapToInt(cost -> Integer.parseInt(cost.trim()))
+                .toArray();
+        int iterations = Integer.getInteger("benchmark.bcrypt.iterations", 50);
+        int warmup = Math.max(3, iterations / 10);
+
+        System.out.printf("%-6s %10s %10s %10s%n", "cost", "p50, ms", "p99, ms", "max, ms");
+        for (int cost : costs) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            String hash = encoder.encode(PASSWORD);
+            for (int i = 0; i < warmup; i++) {
+                encoder.matches(PASSWORD, hash);
+            }
+            long[] samples = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                if (!encoder.matches(PASSWORD, hash)) {
+                    throw new IllegalStateException("BCrypt verification failed for cost " + cost);
+                }
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            System.out.printf("%-6d %10.2f %10.2f %10.2f%n", cost,
+                    percentile(samples, 0.50), percentile(samples, 0.99), samples[samples.length - 1] / 1_000_000.0);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
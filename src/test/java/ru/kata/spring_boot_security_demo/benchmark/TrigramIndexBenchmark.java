@@ -0,0 +1,78 @@
+package ru.kata.spring_boot_security_demo.benchmark;
+
+import org.junit.jupiter.api.Test;
+import ru.kata.spring_boot_security_demo.util.TrigramIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Бенчмарк поиска пользователей по индексу TrigramIndex на синтетических данных.
+ * Запуск: mvn test -Pbenchmark -Dtest=TrigramIndexBenchmark [-Dbenchmark.search.users=1000000] [-Dbenchmark.search.iterations=2000]
+ * Выводит время построения, объем кучи после построения и p50/p99 для префиксных и подстрочных запросов.
+ */
+class TrigramIndexBenchmark {
+
+    private static final String[] NAMES = {"ivan", "petr", "anna", "maria", "sergey", "olga", "dmitry", "elena",
+            "alexey", "natalia", "mikhail", "tatiana", "andrey", "irina", "nikolay", "svetlana"};
+    private static final String[] LASTNAMES = {"ivanov", "petrov", "sidorov", "smirnov", "kuznetsov", "popov",
+            "vasiliev", "sokolov", "mikhailov", "novikov", "fedorov", "morozov", "volkov", "alekseev"};
+    private static final String[] DOMAINS = {"mail.ru", "gmail.com", "yandex.ru", "corp.example", "tenant.example"};
+
+    private static volatile long[] sink;
+
+    @Test
+    void searchLatency() {
+        int users = Integer.getInteger("benchmark.search.users", 1_000_000);
+        int iterations = Integer.getInteger("benchmark.search.iterations", 2000);
+        Random random = new Random(42);
+
+        TrigramIndex index = new TrigramIndex();
+        String sampleEmail = null;
+        long start = System.nanoTime();
+        for (int id = 1; id <= users; id++) {
+            String name = NAMES[random.nextInt(NAMES.length)];
+            String lastname = LASTNAMES[random.nextInt(LASTNAMES.length)];
+            String email = name + "." + lastname + id + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+            index.put(id, email, name, lastname);
+            if (id == users / 2) {
+                sampleEmail = email;
+            }
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapMb = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024 * 1024);
+        System.out.printf("users=%d, build=%d ms, heap after build=%d MB%n", users, buildMillis, heapMb);
+
+        String[][] workloads = {
+                {"prefix-1", "s"},
+                {"prefix-2", "pe"},
+                {"substring-rare", "ov12345"},
+                {"substring-email", sampleEmail.substring(sampleEmail.indexOf('.') + 1, sampleEmail.indexOf('@'))},
+                {"substring-common", "petrov"},
+                {"two-terms", "anna smirnov"},
+                {"miss", "zzzq"}
+        };
+        System.out.printf("%-18s %10s %10s %8s%n", "query", "p50, us", "p99, us", "hits");
+        for (String[] workload : workloads) {
+            String query = workload[1];
+            for (int i = 0; i < iterations / 10; i++) {
+                sink = index.search(query, 20);
+            }
+            long[] samples = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long begin = System.nanoTime();
+                sink = index.search(query, 20);
+                samples[i] = System.nanoTime() - begin;
+            }
+            Arrays.sort(samples);
+            System.out.printf("%-18s %10.1f %10.1f %8d%n", workload[0],
+                    percentile(samples, 0.50), percentile(samples, 0.99), sink.length);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000.0;
+    }
+}
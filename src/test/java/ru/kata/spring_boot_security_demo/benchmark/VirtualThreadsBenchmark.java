@@ -0,0 +1,169 @@
+package ru.kata.spring_boot_security_demo.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.kata.spring_boot_security_demo.SpringBootSecurityDemoApplication;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сравнение обработки запросов на платформенных (пул Tomcat) и виртуальных потоках.
+ * Для каждого режима приложение поднимается на случайном порту, после логина N клиентов одновременно
+ * выполняют по M запросов GET /api/admin/{id}; выводятся пропускная способность, p50/p99 и число
+ * закреплений виртуальных потоков за несущими (jvm.threads.virtual.pinned).
+ * Каждый SQL-запрос задерживается на benchmark.vt.db-latency-ms (сетевая задержка до базы): встроенная H2
+ * отвечает без ожидания, и без задержки сравнивалась бы только нагрузка на CPU. Задержка добавляется
+ * JDBC-прокси поверх источника данных, поэтому подсчет SQL-запросов (SqlStatisticsConfig) в бенчмарке не работает.
+ * Запуск: mvn test -Pbenchmark -Dtest=VirtualThreadsBenchmark [-Dbenchmark.vt.clients=5000]
+ * [-Dbenchmark.vt.requests=10] [-Dbenchmark.vt.db-latency-ms=2] [-Dbenchmark.vt.pool-size=10]
+ * [-Dbenchmark.vt.url=jdbc:mysql://...] (для MySQL задержку лучше выключить: -Dbenchmark.vt.db-latency-ms=0)
+ */
+class VirtualThreadsBenchmark {
+
+    private static final String DEFAULT_URL = "jdbc:h2:mem:vt-%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    @Test
+    void userByIdUnderConcurrentClients() throws Exception {
+        int clients = Integer.getInteger("benchmark.vt.clients", 5000);
+        int requests = Integer.getInteger("benchmark.vt.requests", 10);
+        System.out.printf("clients=%d, requests per client=%d, db latency=%d ms, pool size=%d%n", clients, requests,
+                Integer.getInteger("benchmark.vt.db-latency-ms", 2), Integer.getInteger("benchmark.vt.pool-size", 10));
+        Result platform = run(false, clients, requests);
+        Result virtual = run(true, clients, requests);
+        System.out.printf("%-9s %12s %10s %10s %10s %8s %8s%n",
+                "threads", "req/s", "p50, ms", "p99, ms", "max, ms", "errors", "pinned");
+        for (Result result : new Result[]{platform, virtual}) {
+            System.out.printf("%-9s %12.0f %10.1f %10.1f %10.1f %8d %8d%n", result.mode(), result.throughput(),
+                    result.p50(), result.p99(), result.max(), result.errors(), result.pinned());
+        }
+    }
+
+    private Result run(boolean virtualThreads, int clients, int requests) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        long latencyNanos = Duration.ofMillis(Integer.getInteger("benchmark.vt.db-latency-ms", 2)).toNanos();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityDemoApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(dbLatency(latencyNanos)))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=" + System.getProperty("benchmark.vt.url", DEFAULT_URL.formatted(mode)),
+                        "--spring.datasource.username=" + System.getProperty("benchmark.vt.username", "sa"),
+                        "--spring.datasource.password=" + System.getProperty("benchmark.vt.password", ""),
+                        "--spring.datasource.driver-class-name=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + Integer.getInteger("benchmark.vt.pool-size", 10),
+                        "--logging.level.ru.kata.spring_boot_security_demo=WARN")) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient client = HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_1_1)
+                         .executor(clientThreads)
+                         .build()) {
+                String session = login(client, port);
+                // Прогрев JIT и пулов соединений
+                load(client, port, session, 100, 20);
+                Result result = load(client, port, session, clients, requests);
+                // События JFR доставляются монитору с задержкой около секунды
+                Thread.sleep(2000);
+                return result.withMode(mode, pinned(context.getBean(MeterRegistry.class)));
+            }
+        }
+    }
+
+    private static BeanPostProcessor dbLatency(long latencyNanos) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (latencyNanos <= 0 || !"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .beforeQuery((execInfo, queryInfoList) -> LockSupport.parkNanos(latencyNanos))
+                        .build();
+            }
+        };
+    }
+
+    private static String login(HttpClient client, int port) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/process_login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=admin%40mail.ru&password=admin"))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("/login")) {
+            throw new IllegalStateException("Логин не выполнен: " + response.statusCode() + " " + location);
+        }
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith("JSESSIONID="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Result load(HttpClient client, int port, String session, int clients, int requests)
+            throws InterruptedException {
+        long[] latencies = new long[clients * requests];
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int clientIndex = c;
+                clientThreads.execute(() -> {
+                    for (int r = 0; r < requests; r++) {
+                        // Пользователи admin и user из UserSeeder
+                        HttpRequest request = HttpRequest.newBuilder(
+                                        URI.create("http://localhost:" + port + "/api/admin/" + (1 + (clientIndex + r) % 2)))
+                                .header("Cookie", session)
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[clientIndex * requests + r] = System.nanoTime() - begin;
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(null, (latencies.length - errors.get()) / seconds, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6, errors.get(), 0);
+    }
+
+    private static long pinned(MeterRegistry meterRegistry) {
+        return meterRegistry.find("jvm.threads.virtual.pinned").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Result(String mode, double throughput, double p50, double p99, double max, int errors, long pinned) {
+
+        Result withMode(String mode, long pinned) {
+            return new Result(mode, throughput, p50, p99, max, errors, pinned);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет маршрутизацию чтения на двух встроенных базах H2: основной и реплике.
+ * Отставание реплики задается в таблице replica_status и читается запросом lag-query,
+ * автор записей и чтений - значением writer.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    private final AtomicReference<String> writer = new AtomicReference<>();
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        int id = databases.incrementAndGet();
+        SimpleDriverDataSource primary = h2("routing-primary-" + id);
+        SimpleDriverDataSource replica = h2("routing-replica-" + id);
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        primaryJdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        primaryJdbc.update("INSERT INTO node VALUES ('primary')");
+        replicaJdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        replicaJdbc.update("INSERT INTO node VALUES ('replica')");
+        replicaJdbc.execute("CREATE TABLE replica_status (lag INT)");
+        replicaJdbc.update("INSERT INTO replica_status VALUES (0)");
+
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica), Duration.ofSeconds(5),
+                "SELECT lag FROM replica_status", writer::get, new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routing.trackingPrimary());
+        dataSource.setReadOnlyDataSource(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    void readsGoToPrimaryBeforeFirstCheck() {
+        assertThat(readOnlyNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndOthersToPrimary() {
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("replica");
+        assertThat(readWriteNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replicaJdbc.update("UPDATE replica_status SET lag = 60");
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        replicaJdbc.update("UPDATE replica_status SET lag = 0");
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void stoppedOrFailingReplicaFallsBackToPrimary() {
+        replicaJdbc.update("UPDATE replica_status SET lag = NULL");
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        replicaJdbc.execute("DROP TABLE replica_status");
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readsAfterWriteGoToPrimaryForWriterOnlyUntilReplicaCatchesUp() throws InterruptedException {
+        routing.checkReplicas();
+        writer.set("alice");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary-2'"));
+        assertThat(readOnlyNode()).isEqualTo("primary-2");
+
+        // Запись alice не задерживает чтения других пользователей и фоновых задач
+        writer.set("bob");
+        assertThat(readOnlyNode()).isEqualTo("replica");
+        writer.set(null);
+        assertThat(readOnlyNode()).isEqualTo("replica");
+
+        // Реплика считается догнавшей запись только после проверки, выполненной позже записи на время точности отставания
+        writer.set("alice");
+        Thread.sleep(1100);
+        routing.checkReplicas();
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void writesOfAnonymousCallersAreNotTracked() {
+        routing.checkReplicas();
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary-2'"));
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    private String readOnlyNode() {
+        return readOnly.execute(status -> node());
+    }
+
+    private String readWriteNode() {
+        return readWrite.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static SimpleDriverDataSource h2(String name) {
+        return new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
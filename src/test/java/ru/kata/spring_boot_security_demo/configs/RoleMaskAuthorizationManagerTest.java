@@ -0,0 +1,113 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.RoleAuthorities;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет решения по битовой маске ролей: для principal User (маска из ролей) и для principal
+ * другого типа (маска из authority), а также отказ анонимным и неаутентифицированным запросам.
+ * Роли, которым не хватило бита маски, проверяются по имени authority.
+ */
+class RoleMaskAuthorizationManagerTest {
+
+    private static final RequestAuthorizationContext CONTEXT = new RequestAuthorizationContext(new MockHttpServletRequest());
+
+    @Test
+    void grantsByUserRoles() {
+        Authentication admin = authenticated(user("ROLE_ADMIN"));
+        Authentication user = authenticated(user("ROLE_USER"));
+
+        assertThat(granted(RoleMaskAuthorizationManager.hasRole("ADMIN"), admin)).isTrue();
+        assertThat(granted(RoleMaskAuthorizationManager.hasRole("ADMIN"), user)).isFalse();
+        assertThat(granted(RoleMaskAuthorizationManager.hasAnyRole("USER", "ADMIN"), user)).isTrue();
+        assertThat(granted(RoleMaskAuthorizationManager.hasAnyRole("USER", "ADMIN"), admin)).isTrue();
+    }
+
+    @Test
+    void followsRoleChangesOfUser() {
+        User principal = user("ROLE_USER");
+        Authentication authentication = authenticated(principal);
+        RoleMaskAuthorizationManager admin = RoleMaskAuthorizationManager.hasRole("ADMIN");
+        assertThat(granted(admin, authentication)).isFalse();
+
+        principal.setRole(Set.of(new Role("ROLE_ADMIN")));
+
+        assertThat(granted(admin, authentication)).isTrue();
+    }
+
+    @Test
+    void grantsByAuthoritiesOfOtherPrincipal() {
+        Authentication admin = UsernamePasswordAuthenticationToken.authenticated(
+                "admin", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+        Authentication unknownRole = UsernamePasswordAuthenticationToken.authenticated(
+                "other", null, AuthorityUtils.createAuthorityList("ROLE_NEVER_REGISTERED", "SCOPE_read"));
+
+        assertThat(granted(RoleMaskAuthorizationManager.hasRole("ADMIN"), admin)).isTrue();
+        assertThat(granted(RoleMaskAuthorizationManager.hasRole("USER"), admin)).isFalse();
+        assertThat(granted(RoleMaskAuthorizationManager.hasAnyRole("USER", "ADMIN"), unknownRole)).isFalse();
+    }
+
+    @Test
+    void deniesMissingAnonymousAndUnauthenticated() {
+        RoleMaskAuthorizationManager user = RoleMaskAuthorizationManager.hasAnyRole("USER", "ADMIN");
+        Authentication anonymous = new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        Authentication unauthenticated = UsernamePasswordAuthenticationToken.unauthenticated(user("ROLE_ADMIN"), "admin");
+
+        assertThat(granted(user, null)).isFalse();
+        assertThat(granted(user, anonymous)).isFalse();
+        assertThat(granted(user, unauthenticated)).isFalse();
+        assertThat(granted(user, authenticated(user()))).isFalse();
+    }
+
+    @Test
+    void ruleForRoleWithoutUsersDeniesEveryone() {
+        RoleMaskAuthorizationManager auditor = RoleMaskAuthorizationManager.hasRole("AUDITOR");
+
+        assertThat(granted(auditor, authenticated(user("ROLE_ADMIN", "ROLE_USER")))).isFalse();
+        assertThat(granted(auditor, authenticated(user("ROLE_AUDITOR")))).isTrue();
+    }
+
+    @Test
+    void rolesBeyondMaskAreCheckedByName() {
+        // Регистрирует больше ролей, чем бит в маске
+        for (int i = 0; i <= Long.SIZE; i++) {
+            RoleAuthorities.of("ROLE_OVERFLOW_" + i);
+        }
+        assertThat(RoleAuthorities.bitOf("ROLE_OVERFLOW_" + Long.SIZE)).isZero();
+        RoleMaskAuthorizationManager overflow = RoleMaskAuthorizationManager.hasRole("OVERFLOW_" + Long.SIZE);
+
+        assertThat(granted(overflow, authenticated(user("ROLE_OVERFLOW_" + Long.SIZE)))).isTrue();
+        assertThat(granted(overflow, authenticated(user("ROLE_USER", "ROLE_ADMIN")))).isFalse();
+        assertThat(granted(RoleMaskAuthorizationManager.hasAnyRole("ADMIN", "OVERFLOW_" + Long.SIZE),
+                authenticated(user("ROLE_ADMIN")))).isTrue();
+    }
+
+    private static boolean granted(RoleMaskAuthorizationManager manager, Authentication authentication) {
+        return manager.authorize(() -> authentication, CONTEXT).isGranted();
+    }
+
+    private static Authentication authenticated(User user) {
+        return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    }
+
+    private static User user(String... roles) {
+        User user = new User();
+        user.setEmail("user@mail.ru");
+        user.setRole(List.of(roles).stream().map(Role::new).toList());
+        return user;
+    }
+}
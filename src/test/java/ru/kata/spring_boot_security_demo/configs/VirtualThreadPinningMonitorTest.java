@@ -0,0 +1,80 @@
+package ru.kata.spring_boot_security_demo.configs;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что ожидание внутри synchronized в виртуальном потоке отмечается метрикой с местом ожидания
+ * (первым кадром вне JDK), а такое же ожидание под ReentrantLock - нет.
+ */
+class VirtualThreadPinningMonitorTest {
+
+    private static final Object MONITOR = new Object();
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10), 10);
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void reportsSleepInsideSynchronized() throws Exception {
+        Thread.ofVirtual().start(VirtualThreadPinningMonitorTest::sleepUnderLock).join();
+        Thread.ofVirtual().start(VirtualThreadPinningMonitorTest::sleepUnderMonitor).join();
+
+        // События JFR доставляются по порядку, поэтому к приходу второго первое тоже было бы учтено
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (pinnedTimers().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertThat(pinnedTimers())
+                .extracting(timer -> timer.getId().getTag("frame"))
+                .containsExactly(VirtualThreadPinningMonitorTest.class.getName() + ".sleepUnderMonitor");
+        assertThat(pinnedTimers().iterator().next().count()).isEqualTo(1);
+    }
+
+    private Collection<Timer> pinnedTimers() {
+        return meterRegistry.find("jvm.threads.virtual.pinned").timers();
+    }
+
+    private static void sleepUnderMonitor() {
+        synchronized (MONITOR) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void sleepUnderLock() {
+        LOCK.lock();
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            LOCK.unlock();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Выпуск токенов ограничивается тем же LoginThrottle, что и форма логина: после нескольких неверных
+ * паролей эндпоинт отвечает 429 с Retry-After даже на верный пароль, не проверяя его.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext
+@TestPropertySource(properties = {
+        "app.security.token.enabled=true",
+        // Лимит по IP поднят, чтобы проверить ограничение по учетной записи отдельно
+        "app.security.login-throttle.ip-burst=1000"
+})
+class AuthApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void throttlesRepeatedFailures() throws Exception {
+        requestToken("user@mail.ru", "user").andExpect(status().isOk());
+
+        int failures = 0;
+        int status = 0;
+        while (status != 429 && failures < 10) {
+            status = requestToken("user@mail.ru", "wrong").andReturn().getResponse().getStatus();
+            failures++;
+        }
+        assertThat(status).isEqualTo(429);
+
+        requestToken("user@mail.ru", "user")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        // Лимит по учетной записи не задевает других пользователей с того же IP
+        requestToken("admin@mail.ru", "admin").andExpect(status().isOk());
+    }
+
+    private ResultActions requestToken(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/auth/token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+    }
+}
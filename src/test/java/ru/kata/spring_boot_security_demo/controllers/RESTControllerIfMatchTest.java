@@ -0,0 +1,84 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условное обновление PUT /api/admin по If-Match: "*" требует существования пользователя,
+ * строгий ETag сравнивается с версией строки, слабые и нечисловые ETag не совпадают ни с чем.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext
+@WithMockUser(roles = "ADMIN")
+class RESTControllerIfMatchTest {
+
+    private static final long ID = 900100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertUser() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("INSERT INTO users (id, name, last_name, age, email, email_domain, password, version) "
+                + "VALUES (?, 'match', 'user', 30, 'if-match@mail.ru', 'mail.ru', 'x', 3)", ID);
+    }
+
+    @Test
+    void matchingStrongTagUpdatesAndReturnsNewVersion() throws Exception {
+        edit(ID, "\"3\"")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void staleTagIsRejectedWithCurrentVersion() throws Exception {
+        edit(ID, "\"2\"")
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void weakAndNonNumericTagsNeverMatch() throws Exception {
+        edit(ID, "W/\"3\"").andExpect(status().isPreconditionFailed());
+        edit(ID, "\"abc\"").andExpect(status().isPreconditionFailed());
+        edit(ID, "3").andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void wildcardRequiresExistingUser() throws Exception {
+        edit(ID, "*")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        edit(ID + 1, "*").andExpect(status().isNotFound());
+    }
+
+    private ResultActions edit(long id, String ifMatch) throws Exception {
+        return mockMvc.perform(put("/api/admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, ifMatch)
+                .content("""
+                        {"id": %d, "name": "match", "lastname": "edited", "age": 31, "email": "if-match@mail.ru"}"""
+                        .formatted(id)));
+    }
+}
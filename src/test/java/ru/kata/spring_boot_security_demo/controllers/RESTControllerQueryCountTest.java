@@ -0,0 +1,106 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.kata.spring_boot_security_demo.util.SqlStatisticsMatchers.sqlQueriesAtMost;
+
+/**
+ * Бюджеты SQL-запросов эндпоинтов RESTController на встроенной базе с демонстрационными пользователями UserSeeder.
+ * Рост числа запросов (например, N+1 по ролям или лишние findById) ломает сборку.
+ */
+@SpringBootTest(properties = "app.sql.statistics.enabled=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext
+@WithMockUser(roles = "ADMIN")
+class RESTControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getUsers() throws Exception {
+        // Версия таблицы, страница пользователей и роли страницы одним запросом по списку ID
+        mockMvc.perform(get("/api/admin"))
+                .andExpect(status().isOk())
+                .andExpect(sqlQueriesAtMost(3));
+    }
+
+    @Test
+    void getUsersNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/admin")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                // Только строка версии таблицы
+                .andExpect(sqlQueriesAtMost(1));
+    }
+
+    @Test
+    void filterUsers() throws Exception {
+        mockMvc.perform(get("/api/admin/filter").param("minAge", "18").param("sort", "lastname"))
+                .andExpect(status().isOk())
+                .andExpect(sqlQueriesAtMost(2));
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        mockMvc.perform(get("/api/admin/search").param("q", "adm"))
+                .andExpect(status().isOk())
+                .andExpect(sqlQueriesAtMost(2));
+    }
+
+    @Test
+    void getUser() throws Exception {
+        mockMvc.perform(get("/api/admin/1"))
+                .andExpect(status().isOk())
+                .andExpect(sqlQueriesAtMost(1));
+    }
+
+    @Test
+    void getUserNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/admin/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/admin/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                // Только версия строки
+                .andExpect(sqlQueriesAtMost(1));
+    }
+
+    @Test
+    void createEditAndDeleteUser() throws Exception {
+        mockMvc.perform(post("/api/admin").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"name": "budget", "lastname": "test", "age": 33, "email": "budget@test.io",
+                         "password": "secret", "role": [{"id": 1}]}"""))
+                .andExpect(status().isOk())
+                // Вставка пользователя, связи с ролью и увеличение версии таблицы
+                .andExpect(sqlQueriesAtMost(3));
+        String id = mockMvc.perform(get("/api/admin/search").param("q", "budget@test.io"))
+                .andReturn().getResponse().getContentAsString().replaceAll("^\\[\\{\"id\":(\\d+).*$", "$1");
+
+        mockMvc.perform(put("/api/admin").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"id": %s, "name": "budget", "lastname": "edited", "age": 34, "email": "budget@test.io",
+                         "role": [{"id": 1}, {"id": 2}]}""".formatted(id)))
+                .andExpect(status().isOk())
+                // Обновление с проверкой версии, замена связей с ролями, чтение новой версии и увеличение версии таблицы,
+                // без загрузки сущности
+                .andExpect(sqlQueriesAtMost(5));
+
+        mockMvc.perform(delete("/api/admin/" + id))
+                .andExpect(status().isOk())
+                // Блокировка строки users увеличением версии, удаление связей и пользователя, версия таблицы
+                .andExpect(sqlQueriesAtMost(4));
+    }
+}
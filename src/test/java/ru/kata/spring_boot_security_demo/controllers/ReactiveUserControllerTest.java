@@ -0,0 +1,124 @@
+package ru.kata.spring_boot_security_demo.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Неблокирующее чтение пользователей (/api/reactive/**) на встроенной базе: JPA и R2DBC работают с одной
+ * in-memory H2, демонстрационные пользователи UserSeeder (admin - ID 1, user - ID 2).
+ * Ответ Mono завершается асинхронной диспетчеризацией, которая повторно проходит фильтры безопасности.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.reactive.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "app.security.token.enabled=true"
+})
+class ReactiveUserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUser() throws Exception {
+        perform(get("/api/reactive/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("admin@mail.ru"))
+                .andExpect(jsonPath("$.role[0].roleName").value("ROLE_ADMIN"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUserNotFound() throws Exception {
+        perform(get("/api/reactive/users/999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUsersByCursor() throws Exception {
+        String cursor = JsonPath.read(perform(get("/api/reactive/users").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].role[0].roleName").value("ROLE_ADMIN"))
+                .andReturn().getResponse().getContentAsString(), "$.nextCursor");
+
+        perform(get("/api/reactive/users").param("cursor", cursor).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].email").value("user@mail.ru"))
+                .andExpect(jsonPath("$.items[0].role[0].roleName").value("ROLE_USER"))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUsersInvalidSize() throws Exception {
+        mockMvc.perform(get("/api/reactive/users").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails("user@mail.ru")
+    void getCurrentUser() throws Exception {
+        perform(get("/api/reactive/user/current"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("user@mail.ru"));
+    }
+
+    @Test
+    @WithUserDetails("user@mail.ru")
+    void getUserForbiddenForUser() throws Exception {
+        mockMvc.perform(get("/api/reactive/users/1"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getCurrentUserByBearerToken() throws Exception {
+        String token = JsonPath.read(mockMvc.perform(post("/api/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"user@mail.ru\",\"password\":\"user\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.access_token");
+
+        perform(get("/api/reactive/user/current").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("user@mail.ru"));
+    }
+
+    // Запрос должен уйти в асинхронную обработку, ответ проверяется после повторной диспетчеризации
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
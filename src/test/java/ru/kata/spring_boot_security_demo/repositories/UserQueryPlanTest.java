@@ -0,0 +1,151 @@
+package ru.kata.spring_boot_security_demo.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет планы запросов UserFilterRepository во встроенной H2: каждый фильтр должен идти
+ * по своему индексу, а не полным просмотром таблицы.
+ * SQL перехватывается StatementInspector с подстановкой значений условий в текст (inline),
+ * затем выполняется EXPLAIN.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.kata.spring_boot_security_demo.repositories.UserQueryPlanTest$SqlCapture",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class UserQueryPlanTest {
+
+    private static final String[] LASTNAMES = {"ivanov", "petrov", "sidorov", "smirnov", "kuznetsov", "popov"};
+    private static final String[] DOMAINS = {"mail.ru", "gmail.com", "corp.example", "tenant.example"};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long adminRoleId;
+
+    // ANALYZE в H2 фиксирует транзакцию, поэтому данные создаются один раз на контекст; роли создает миграция
+    @BeforeEach
+    void seed() {
+        Role userRole = roleRepository.findByRoleName("ROLE_USER");
+        Role adminRole = roleRepository.findByRoleName("ROLE_ADMIN");
+        adminRoleId = adminRole.getId();
+        if (userRepository.count() > 0) {
+            return;
+        }
+        Random random = new Random(7);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setLastname(LASTNAMES[random.nextInt(LASTNAMES.length)] + i);
+            user.setAge(random.nextInt(80));
+            user.setEmail("user" + i + "@" + DOMAINS[random.nextInt(DOMAINS.length)]);
+            user.setPassword("hash");
+            user.setRole(i % 50 == 0 ? Set.of(userRole, adminRole) : Set.of(userRole));
+            users.add(user);
+        }
+        userRepository.saveAllAndFlush(users);
+        // Обновляет статистику селективности, на которую опирается оптимизатор H2
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void ageRangeUsesAgeIndex() {
+        assertIndexUsed(UserSpecifications.ageBetween(30, 32), Sort.by("age", "id"), "idx_users_age");
+    }
+
+    @Test
+    void roleUsesRoleIndex() {
+        assertIndexUsed(UserSpecifications.hasRole(adminRoleId), Sort.by("id"), "idx_users_roles_role");
+    }
+
+    @Test
+    void lastnamePrefixUsesLastnameIndex() {
+        assertIndexUsed(UserSpecifications.lastnameStartsWith("petrov1"), Sort.by("lastname", "id"), "idx_users_last_name");
+    }
+
+    @Test
+    void emailDomainUsesDomainIndex() {
+        assertIndexUsed(UserSpecifications.emailDomain("corp.example"), Sort.by("id"), "idx_users_email_domain");
+    }
+
+    @Test
+    void emailDomainIsMaintainedOnInsert() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email_domain IS NULL OR email NOT LIKE CONCAT('%@', email_domain)",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void bulkDomainQueriesMatchWholeDomainOnly() {
+        Integer inDomain = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email_domain = 'corp.example'", Integer.class);
+        assertThat(inDomain).isPositive();
+
+        Integer withoutAdmin = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users u WHERE u.email_domain = "
+                + "'corp.example' AND u.id NOT IN (SELECT user_id FROM users_roles WHERE role_id = ?)",
+                Integer.class, adminRoleId);
+
+        assertThat(userRepository.incrementVersionByEmailDomain("corp.example")).isEqualTo(inDomain);
+        // Версия увеличивается только у тех, чьи роли изменятся
+        assertThat(userRepository.incrementVersionWithoutRoleByEmailDomain(adminRoleId, "corp.example"))
+                .isEqualTo(withoutAdmin);
+        assertThat(userRepository.assignRoleByEmailDomain(adminRoleId, "corp.example")).isEqualTo(withoutAdmin);
+        assertThat(userRepository.incrementVersionWithoutRoleByEmailDomain(adminRoleId, "corp.example")).isZero();
+        assertThat(userRepository.incrementVersionWithRoleByEmailDomain(adminRoleId, "corp.example"))
+                .isEqualTo(inDomain);
+        // Символы LIKE в домене больше не шаблон: "%" не выбирает всех пользователей
+        assertThat(userRepository.incrementVersionByEmailDomain("%")).isZero();
+        assertThat(userRepository.revokeRoleByEmailDomain(adminRoleId, "%example")).isZero();
+    }
+
+    private void assertIndexUsed(Specification<User> specification, Sort sort, String index) {
+        SqlCapture.statements.clear();
+        List<?> rows = userRepository.findDtos(specification, sort, 0, 21);
+        assertThat(rows).isNotEmpty();
+        assertThat(SqlCapture.statements).hasSize(1);
+        // Остаются только параметры LIMIT/OFFSET
+        String sql = SqlCapture.statements.get(0).replace("?", "21");
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase(Locale.ROOT);
+        assertThat(plan).as(plan).doesNotContain("tablescan").contains(index);
+    }
+
+    /**
+     * Перехватчик SQL, который Hibernate создает для запросов к базе.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase(Locale.ROOT).startsWith("select")) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
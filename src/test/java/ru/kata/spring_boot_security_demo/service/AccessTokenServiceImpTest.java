@@ -0,0 +1,165 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.junit.jupiter.api.Test;
+import ru.kata.spring_boot_security_demo.models.Role;
+import ru.kata.spring_boot_security_demo.models.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет разбор и проверку токенов доступа: подпись, срок действия, ротацию ключей
+ * и устойчивость к поврежденным токенам (всегда пустой результат, без исключений).
+ */
+class AccessTokenServiceImpTest {
+
+    private static final String OLD_KEY = "old:" + secret('o');
+    private static final String NEW_KEY = "new:" + secret('n');
+    private static final Duration TTL = Duration.ofMinutes(15);
+    private static final Duration ROTATION_WINDOW = Duration.ofHours(1);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    @Test
+    void verifiesIssuedToken() {
+        AccessTokenServiceImp service = service(NEW_KEY);
+
+        Optional<User> user = service.verify(service.issue(user()));
+
+        assertThat(user).isPresent();
+        assertThat(user.get().getId()).isEqualTo(42L);
+        assertThat(user.get().getEmail()).isEqualTo("admin@mail.ru");
+        assertThat(user.get().getRole()).extracting(Role::getRoleName)
+                .containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_USER");
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        AccessTokenServiceImp service = service(NEW_KEY);
+        String token = service.issue(user());
+
+        clock.advance(TTL.minusSeconds(1));
+        assertThat(service.verify(token)).isPresent();
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(service.verify(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        AccessTokenServiceImp service = service(NEW_KEY);
+        String[] parts = service.issue(user()).split("\\.");
+        // Подмена ролей с сохранением исходной подписи
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "2\n9999999999\nROLE_ADMIN\nuser@mail.ru".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(service.verify(parts[0] + "." + parts[1] + "." + forged + "." + parts[3])).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        AccessTokenServiceImp service = service(NEW_KEY);
+        String token = service.issue(user());
+        int signatureStart = token.lastIndexOf('.') + 1;
+        // Меняется первый символ подписи: в последнем символе base64 часть битов не значима
+        char first = token.charAt(signatureStart);
+
+        assertThat(service.verify(token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1))).isEmpty();
+    }
+
+    @Test
+    void rejectsTokenSignedWithUnknownKey() {
+        String token = service(OLD_KEY).issue(user());
+
+        assertThat(service(NEW_KEY).verify(token)).isEmpty();
+    }
+
+    @Test
+    void acceptsPreviousKeyOnlyWithinRotationWindow() {
+        String token = service(OLD_KEY).issue(user());
+        AccessTokenServiceImp rotated = service(NEW_KEY + "," + OLD_KEY);
+
+        assertThat(rotated.verify(token)).isPresent();
+        // Новые токены подписываются первым (активным) ключом
+        assertThat(rotated.issue(user())).startsWith("v1.new.");
+
+        clock.advance(ROTATION_WINDOW.plusSeconds(1));
+        assertThat(rotated.verify(token)).isEmpty();
+        assertThat(rotated.verify(rotated.issue(user()))).isPresent();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        AccessTokenServiceImp service = service(NEW_KEY);
+        String token = service.issue(user());
+
+        assertThat(service.verify("")).isEmpty();
+        assertThat(service.verify("garbage")).isEmpty();
+        assertThat(service.verify("v1.new.payload")).isEmpty();
+        assertThat(service.verify("v1.new.%%%.***")).isEmpty();
+        assertThat(service.verify("v2" + token.substring(2))).isEmpty();
+        assertThat(service.verify("x." + token)).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidKeySpec() {
+        assertThatThrownBy(() -> service("no-separator"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service(":" + secret('x')))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private AccessTokenServiceImp service(String keySpec) {
+        return new AccessTokenServiceImp(keySpec, TTL, ROTATION_WINDOW, clock);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("admin@mail.ru");
+        user.setRole(Set.of(new Role("ROLE_ADMIN"), new Role("ROLE_USER")));
+        return user;
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
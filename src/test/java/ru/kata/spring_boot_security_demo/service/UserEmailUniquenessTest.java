@@ -0,0 +1,84 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.kata.spring_boot_security_demo.models.User;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Занятость email для пользователя, записанного в базу в обход этого экземпляра приложения
+ * (другой экземпляр, UserSeeder): проверка видит его, а вставка дубликата дает ошибку валидации, а не 500.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext
+@WithMockUser(roles = "ADMIN")
+class UserEmailUniquenessTest {
+
+    private static final String EMAIL = "external@mail.ru";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private EmailBloomFilter emailBloomFilter;
+
+    @BeforeEach
+    void insertExternalUser() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = 900000");
+        emailBloomFilter.load();
+        jdbcTemplate.update("INSERT INTO users (id, name, last_name, age, email, email_domain, password, version) "
+                + "VALUES (900000, 'external', 'user', 30, ?, 'mail.ru', 'x', 0)", EMAIL);
+    }
+
+    @Test
+    void externalEmailIsTaken() {
+        assertThat(userService.isEmailTaken(EMAIL)).isTrue();
+    }
+
+    @Test
+    void createWithTakenEmailIsRejected() throws Exception {
+        long roleId = roleService.findByRoleName("ROLE_USER").getId();
+        mockMvc.perform(post("/api/admin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"dup\",\"lastname\":\"dup\",\"age\":20,\"email\":\"" + EMAIL
+                                + "\",\"password\":\"secret\",\"role\":[{\"id\":" + roleId + "}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Email already taken: " + EMAIL));
+    }
+
+    @Test
+    void editToTakenEmailIsRejected() {
+        User user = new User();
+        user.setId(2L);
+        user.setName("user");
+        user.setEmail(EMAIL);
+
+        assertThatThrownBy(() -> userService.edit(user)).isInstanceOf(UserBadRequestException.class);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+import ru.kata.spring_boot_security_demo.dto.UserImportError;
+import ru.kata.spring_boot_security_demo.dto.UserImportReport;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+import ru.kata.spring_boot_security_demo.util.UserBadRequestException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Импорт пользователей на встроенной базе: разбор CSV и NDJSON, проверка строк и отчет об ошибках
+ * с номерами строк исходного файла.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext
+@TestPropertySource(properties = "app.users.import.chunk-size=2")
+class UserImportServiceImpTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void importsCsvAndReportsRejectedRows() throws IOException {
+        UserImportReport report = importCsv("""
+                Email,Name,LastName,Age,Password,Roles
+                csv1@mail.ru,Anna,"Smith, ""Jr""\",30,secret,admin|ROLE_USER
+                csv2@mail.ru,Boris,"two
+                lines",25,secret,
+                csv3@mail.ru,Clara,,abc,secret,
+                csv4@mail.ru,Dmitry,,20,,
+                csv5@mail.ru,Elena,,20,secret,AUDITOR
+                csv1@mail.ru,Fedor,,20,secret,
+                admin@mail.ru,Admin,,20,secret,
+                csv6@mail.ru,X,,20,secret,
+                """);
+
+        assertThat(report.total()).isEqualTo(8);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors())
+                .extracting(UserImportError::line, UserImportError::message)
+                .containsExactlyInAnyOrder(
+                        tuple(5L, "Age must be a number"),
+                        tuple(6L, "Password must not be empty"),
+                        tuple(7L, "Unknown role: AUDITOR"),
+                        tuple(8L, "Duplicate email in import"),
+                        tuple(9L, "Email already taken"),
+                        tuple(10L, "name: Имя должно быть от 2 до 30 символов"));
+        assertThat(userRepository.findByEmail("csv1@mail.ru")).get()
+                .satisfies(user -> {
+                    assertThat(user.getLastname()).isEqualTo("Smith, \"Jr\"");
+                    assertThat(user.getRole()).hasSize(2);
+                });
+        assertThat(userRepository.findByEmail("csv2@mail.ru")).get()
+                .satisfies(user -> assertThat(user.getLastname()).isEqualTo("two\nlines"));
+    }
+
+    @Test
+    void stopsAtUnterminatedQuote() throws IOException {
+        UserImportReport report = importCsv("""
+                name,email,password
+                Galina,quote1@mail.ru,secret
+                "Oleg,quote2@mail.ru,secret
+                Pavel,quote3@mail.ru,secret
+                """);
+
+        assertThat(report.total()).isEqualTo(2);
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors())
+                .extracting(UserImportError::line, UserImportError::message)
+                .containsExactly(tuple(3L, "Unterminated quoted field"));
+        assertThat(userRepository.findByEmail("quote3@mail.ru")).isEmpty();
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> importCsv("name,email\nIvan,ivan@mail.ru\n"))
+                .isInstanceOf(UserBadRequestException.class)
+                .hasMessageContaining("password");
+    }
+
+    @Test
+    void importsNdjsonAndReportsMalformedLines() throws IOException {
+        UserImportReport report = userImportService.importUsers(UserFileFormat.NDJSON, stream("""
+                {"name":"Kirill","email":"json1@mail.ru","password":"secret","roles":["USER"]}
+
+                {"name":"Lev","email":
+                {"name":"Maria","email":"not-an-email","password":"secret"}
+                """));
+
+        assertThat(report.total()).isEqualTo(3);
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(UserImportError::line).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(report.errors()).filteredOn(error -> error.line() == 3)
+                .allSatisfy(error -> assertThat(error.message()).startsWith("Malformed JSON"));
+    }
+
+    private UserImportReport importCsv(String csv) throws IOException {
+        return userImportService.importUsers(UserFileFormat.CSV, stream(csv));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
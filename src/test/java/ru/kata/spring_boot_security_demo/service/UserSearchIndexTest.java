@@ -0,0 +1,64 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.junit.jupiter.api.Test;
+import ru.kata.spring_boot_security_demo.dto.UserDto;
+import ru.kata.spring_boot_security_demo.repositories.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Загрузка поискового индекса: обновления, закоммиченные во время потокового чтения, не перезаписываются
+ * устаревшими строками из потока.
+ */
+class UserSearchIndexTest {
+
+    @Test
+    void updatesCommittedDuringLoadWinOverStreamedRows() {
+        UserSearchIndex[] holder = new UserSearchIndex[1];
+        UserSearchIndex index = new UserSearchIndex(repository(() -> Stream.of(
+                        new UserDto(1L, "old", "user", 30, "old@mail.ru"),
+                        new UserDto(2L, "removed", "user", 30, "removed@mail.ru"),
+                        new UserDto(3L, "kept", "user", 30, "kept@mail.ru"))
+                // Пока поток читается, другие транзакции меняют первого пользователя и удаляют второго
+                .peek(user -> {
+                    if (user.id() == 1L) {
+                        holder[0].put(1L, "new@mail.ru", "new", "user");
+                        holder[0].remove(2L);
+                    }
+                })));
+        holder[0] = index;
+
+        index.load();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("new@mail", 10)).containsExactly(1L);
+        assertThat(index.search("old@mail", 10)).isEmpty();
+        assertThat(index.search("removed", 10)).isEmpty();
+        assertThat(index.search("kept", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void updatesAfterLoadApplyImmediately() {
+        UserSearchIndex index = new UserSearchIndex(repository(Stream::empty));
+        index.load();
+
+        index.put(5L, "late@mail.ru", "late", "user");
+
+        assertThat(index.search("late", 10)).containsExactly(5L);
+    }
+
+    private static UserRepository repository(Supplier<Stream<UserDto>> users) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("streamAllUserDtos")) {
+                        return users.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,100 @@
+package ru.kata.spring_boot_security_demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring_boot_security_demo.dto.UserFileFormat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Версия таблицы пользователей хранится в базе: ETag списка меняется после записи другим экземпляром
+ * приложения или импортом и не меняется после отката транзакции.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext
+@WithMockUser(roles = "ADMIN")
+class UserTableVersionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserTableVersion userTableVersion;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Test
+    void writeOfAnotherInstanceInvalidatesEtag() throws Exception {
+        String etag = listEtag();
+
+        // Другой экземпляр приложения увеличивает ту же строку в своей транзакции
+        jdbcTemplate.update("UPDATE user_table_version SET version = version + 1 WHERE id = 1");
+
+        mockMvc.perform(get("/api/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertThat(listEtag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void importInvalidatesEtag() throws Exception {
+        String etag = listEtag();
+
+        userImportService.importUsers(UserFileFormat.CSV, new ByteArrayInputStream(
+                "name,email,password\nversion,version@mail.ru,secret\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(listEtag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void rolledBackWriteKeepsVersion() {
+        String version = userTableVersion.current();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userTableVersion.increment();
+            status.setRollbackOnly();
+        });
+
+        assertThat(userTableVersion.current()).isEqualTo(version);
+    }
+
+    @Test
+    void incrementsAreSpreadAcrossSlots() {
+        long version = Long.parseLong(userTableVersion.current());
+
+        for (int i = 0; i < 100; i++) {
+            userTableVersion.increment();
+        }
+
+        assertThat(Long.parseLong(userTableVersion.current())).isEqualTo(version + 100);
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(version) FROM user_table_version", Long.class))
+                .isLessThan(version + 100);
+    }
+
+    private String listEtag() throws Exception {
+        return mockMvc.perform(get("/api/admin")).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
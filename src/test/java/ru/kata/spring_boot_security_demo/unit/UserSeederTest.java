@@ -0,0 +1,65 @@
+package ru.kata.spring_boot_security_demo.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Заполнение синтетическими пользователями: повторный запуск досоздает недостающих, диапазон ID
+ * резервируется в users_seq, а идентификаторы Hibernate выдаются за ним.
+ */
+@SpringBootTest(properties = {"app.seed.users=120", "app.seed.batch-size=50"})
+@AutoConfigureTestDatabase
+@DirtiesContext
+class UserSeederTest {
+
+    private static final String SEEDED = "FROM users WHERE email LIKE 'seed%'";
+
+    @Autowired
+    private UserSeeder userSeeder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void resumesAfterLastSeededUserAndKeepsSequenceAhead() {
+        assertThat(count()).isEqualTo(120);
+        // Строка в обход последовательности выше всех выданных ID
+        long outsideId = maxSeededId() + 500;
+        jdbcTemplate.update("INSERT INTO users (id, name, last_name, age, email, email_domain, password, version) "
+                + "VALUES (?, 'outside', 'user', 30, 'outside@mail.ru', 'mail.ru', 'x', 0)", outsideId);
+        // Прерванный запуск: последние пачки не зафиксированы
+        long firstSeededId = jdbcTemplate.queryForObject("SELECT MIN(id) " + SEEDED, Long.class);
+        jdbcTemplate.update("DELETE FROM users_roles WHERE user_id IN (SELECT id " + SEEDED + " AND id >= ?)",
+                firstSeededId + 70);
+        jdbcTemplate.update("DELETE " + SEEDED + " AND id >= ?", firstSeededId + 70);
+        assertThat(count()).isEqualTo(70);
+
+        userSeeder.run(new DefaultApplicationArguments());
+
+        assertThat(count()).isEqualTo(120);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT email) " + SEEDED, Integer.class)).isEqualTo(120);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(id) " + SEEDED + " AND id > ?", Long.class,
+                firstSeededId + 69)).isGreaterThan(outsideId);
+        assertThat(jdbcTemplate.queryForObject("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE LOWER(SEQUENCE_NAME) = 'users_seq'", Long.class)).isEqualTo(50);
+
+        // Следующий блок Hibernate (V-49..V) начинается после всех созданных пользователей
+        long nextBlock = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        assertThat(nextBlock - 49).isGreaterThan(maxSeededId());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) " + SEEDED, Integer.class);
+    }
+
+    private long maxSeededId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) " + SEEDED, Long.class);
+    }
+}
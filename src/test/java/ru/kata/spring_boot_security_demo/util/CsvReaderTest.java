@@ -0,0 +1,90 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет разбор CSV по RFC 4180: кавычки, экранирование, переводы строк внутри полей,
+ * окончания строк CRLF/CR/LF, номера строк записей и незакрытую кавычку.
+ */
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        CsvReader csv = reader("name,email\nann,ann@mail.ru\n");
+
+        assertThat(csv.next()).containsExactly("name", "email");
+        assertThat(csv.next()).containsExactly("ann", "ann@mail.ru");
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void readsQuotedFields() throws IOException {
+        CsvReader csv = reader("\"Smith, John\",\"say \"\"hi\"\"\",\"\",plain\n");
+
+        assertThat(csv.next()).containsExactly("Smith, John", "say \"hi\"", "", "plain");
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotesAndCountsLines() throws IOException {
+        CsvReader csv = reader("a,b\n1,\"multi\nline\r\nvalue\"\n2,x\n");
+
+        csv.next();
+        assertThat(csv.next()).containsExactly("1", "multi\nline\r\nvalue");
+        assertThat(csv.getRecordLine()).isEqualTo(2);
+        assertThat(csv.next()).containsExactly("2", "x");
+        assertThat(csv.getRecordLine()).isEqualTo(5);
+    }
+
+    @Test
+    void acceptsAnyLineEnding() throws IOException {
+        CsvReader csv = reader("a,b\r\n1,2\r3,4\n5,6");
+
+        assertThat(csv.next()).containsExactly("a", "b");
+        assertThat(csv.next()).containsExactly("1", "2");
+        assertThat(csv.next()).containsExactly("3", "4");
+        assertThat(csv.next()).containsExactly("5", "6");
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void skipsBlankLinesAndKeepsEmptyFields() throws IOException {
+        CsvReader csv = reader("\n\na,,\n\r\n,b\n");
+
+        assertThat(csv.next()).containsExactly("a", "", "");
+        assertThat(csv.getRecordLine()).isEqualTo(3);
+        assertThat(csv.next()).containsExactly("", "b");
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void treatsQuoteInsideUnquotedFieldAsText() throws IOException {
+        assertThat(reader("5'10\",x\"y\n").next()).containsExactly("5'10\"", "x\"y");
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() throws IOException {
+        CsvReader csv = reader("a,b\n1,\"never closed\n2,x\n");
+
+        csv.next();
+        assertThatThrownBy(csv::next)
+                .isInstanceOf(CsvReader.MalformedCsvException.class)
+                .hasMessage("Unterminated quoted field");
+        assertThat(csv.getRecordLine()).isEqualTo(2);
+    }
+
+    @Test
+    void returnsNullForEmptyInput() throws IOException {
+        assertThat(reader("").next()).isNull();
+        assertThat(reader("\r\n\n").next()).isNull();
+    }
+
+    private static CsvReader reader(String text) {
+        return new CsvReader(new StringReader(text));
+    }
+}
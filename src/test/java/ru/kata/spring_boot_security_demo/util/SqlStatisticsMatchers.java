@@ -0,0 +1,30 @@
+package ru.kata.spring_boot_security_demo.util;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.kata.spring_boot_security_demo.configs.SqlStatisticsFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверки MockMvc по статистике SQL-запросов, которую SqlStatisticsFilter сохраняет в атрибуте запроса.
+ */
+public final class SqlStatisticsMatchers {
+
+    private SqlStatisticsMatchers() {
+    }
+
+    /**
+     * Проверяет, что запрос выполнил не больше заданного количества SQL-запросов.
+     * @param max Допустимое количество запросов.
+     * @return Проверка результата MockMvc.
+     */
+    public static ResultMatcher sqlQueriesAtMost(int max) {
+        return result -> {
+            SqlStatistics statistics = (SqlStatistics) result.getRequest().getAttribute(SqlStatisticsFilter.REQUEST_ATTRIBUTE);
+            assertThat(statistics).as("SqlStatisticsFilter не применен к запросу").isNotNull();
+            assertThat(statistics.getQueries())
+                    .as("%s, повторяющиеся запросы: %s", statistics, statistics.repeatedStatements(3))
+                    .isLessThanOrEqualTo(max);
+        };
+    }
+}